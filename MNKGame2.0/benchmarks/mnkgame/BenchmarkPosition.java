@@ -0,0 +1,49 @@
+package mnkgame;
+
+import java.util.LinkedList;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Fixed position shared by the benchmarks: one of the layouts of Test played in the top left
+ * corner of an MxN board, with a free cell to mark and unmark.
+ * The layouts never align 4 symbols, so K must be at least 4, and their threats are
+ * k-1 and k-2 rows of 3 and 4 symbols, so above 5 the position has no threats at all
+ */
+@State(Scope.Thread)
+public class BenchmarkPosition {
+    @Param({ "openThreats", "halfOpenThreats" })
+    public String layout;
+
+    @Param({ "7,7,4", "10,10,5", "20,20,5", "50,50,5", "100,100,5" })
+    public String mnk;
+
+    public Board board;
+    public GW gw;
+
+    /** A free cell next to the stones of both layouts */
+    public final int freeI = 4, freeJ = 4;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String[] v = mnk.split(",");
+        int M = Integer.parseInt(v[0]), N = Integer.parseInt(v[1]), K = Integer.parseInt(v[2]);
+
+        gw = new GW();
+        gw.initPlayer(M, N, K, true, 1000000); // no timeout within a benchmark invocation
+        board = gw.board;
+        Test.scenario(board, p1Moves(), p2Moves());
+    }
+
+    public LinkedList<Position> p1Moves() {
+        return layout.equals("openThreats") ? Test.openThreatsP1Moves() : Test.halfOpenThreatsP1Moves();
+    }
+
+    public LinkedList<Position> p2Moves() {
+        return layout.equals("openThreats") ? Test.openThreatsP2Moves() : Test.halfOpenThreatsP2Moves();
+    }
+}
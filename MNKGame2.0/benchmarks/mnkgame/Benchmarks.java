@@ -0,0 +1,24 @@
+package mnkgame;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all the benchmarks (or the ones matching the regular expression given as first argument)
+ * with the GC profiler, which also reports the allocation rate and the bytes allocated per operation
+ */
+public class Benchmarks {
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "mnkgame\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .build();
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,70 @@
+package mnkgame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Hot paths of MNKBoard and Board on the fixed positions of BenchmarkPosition.
+ * Every benchmark leaves the board as it found it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BoardBenchmark {
+
+    /** The same moves on a bare MNKBoard, to tell the cost of Board's bookkeeping apart */
+    @State(Scope.Thread)
+    public static class PlainBoard {
+        public MNKBoard board;
+
+        @Setup(Level.Trial)
+        public void setup(BenchmarkPosition p) {
+            board = new MNKBoard(p.board.M, p.board.N, p.board.K);
+            for (MNKCell c : p.board.getMarkedCells())
+                board.markCell(c.i, c.j);
+        }
+    }
+
+    @Benchmark
+    public MNKGameState mnkBoardMarkUnmark(PlainBoard s, BenchmarkPosition p) {
+        MNKGameState state = s.board.markCell(p.freeI, p.freeJ);
+        s.board.unmarkCell();
+        return state;
+    }
+
+    @Benchmark
+    public MNKGameState boardMarkUnmark(BenchmarkPosition p) {
+        MNKGameState state = p.board.markCell(p.freeI, p.freeJ);
+        p.board.unmarkCell();
+        return state;
+    }
+
+    /** Two threat updates: one after marking the free cell and one after unmarking it */
+    @Benchmark
+    public void updateThreats(BenchmarkPosition p, Blackhole bh) {
+        Board b = p.board;
+        b.markCell(p.freeI, p.freeJ);
+        b.updateThreats(b.getCellAt(p.freeI, p.freeJ));
+        bh.consume(b.threats);
+        b.unmarkCell();
+        b.updateThreats(b.getCellAt(p.freeI, p.freeJ));
+    }
+
+    @Benchmark
+    public Object contour(BenchmarkPosition p) {
+        return p.board.contour();
+    }
+
+    @Benchmark
+    public int[] getNumberOfThreats(BenchmarkPosition p) {
+        return p.board.getNumberOfThreats();
+    }
+}
@@ -0,0 +1,81 @@
+package mnkgame;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * GW's evaluation and search on the fixed positions of BenchmarkPosition.
+ * alphaBeta runs a fixed depth full window search, its nodes (marked cells) are counted
+ * by a Board that JMH reports as nodes per second next to the calls per second
+ */
+public class SearchBenchmark {
+
+    /** Counts the cells marked by the search */
+    static class CountingBoard extends Board {
+        long nodes;
+
+        CountingBoard(int m, int n, int k) {
+            super(m, n, k);
+        }
+
+        @Override
+        public MNKGameState markCell(int i, int j) {
+            nodes++;
+            return super.markCell(i, j);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class SearchPosition {
+        @Param({ "2", "3" })
+        public int depth;
+
+        public GW gw;
+        public CountingBoard board;
+
+        @Setup(Level.Trial)
+        public void setup(BenchmarkPosition p) {
+            gw = p.gw;
+            board = new CountingBoard(p.board.M, p.board.N, p.board.K);
+            for (MNKCell c : p.board.getMarkedCells()) {
+                board.markCell(c.i, c.j);
+                board.updateThreats(board.getCellAt(c.i, c.j));
+            }
+            board.nodes = 0;
+            gw.board = board;
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int evaluate(BenchmarkPosition p) {
+        return p.gw.evaluate(p.board, MNKCellState.P1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Integer alphaBeta(SearchPosition s, Nodes n) {
+        long before = s.board.nodes;
+        Integer eval = s.gw.alphaBeta(s.board, true, Integer.MIN_VALUE, Integer.MAX_VALUE, s.depth, System.currentTimeMillis());
+        n.nodes += s.board.nodes - before;
+        return eval;
+    }
+}
@@ -0,0 +1,240 @@
+package mnkgame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Values many independent positions of one (M,N,K) class, e.g. for book building,
+ * tuning or game review, with GW.evaluate() or a search of fixed depth.
+ * <p>
+ * The positions are taken in batches: a batch is cut into slices of consecutive
+ * positions that the workers share, each with its own GW set up once, and whose
+ * board goes from a position to the next with setPosition(), so the positions of
+ * the same game cost a move or two each. The values of a batch are given in the
+ * order of the positions.
+ * </p>
+ * <p>
+ * Usage: BatchEvaluator [OPTIONS] &lt;M&gt; &lt;N&gt; &lt;K&gt; &lt; positions<br/>
+ * one position per line, as moves i,j separated by spaces (see MNKAnalyser); prints
+ * the value of every position and the best move, if searched, and the throughput
+ * on stderr<br/>
+ * OPTIONS:<br>
+ * &nbsp;&nbsp;-d &lt;depth&gt; Search depth, 0 for the static evaluation</br>
+ * &nbsp;&nbsp;-j &lt;jobs&gt; Number of threads</br>
+ * </p>
+ */
+public class BatchEvaluator {
+    private static final int SLICE = 64; // positions taken by a worker at a time
+    private static final int BATCH = 256 * SLICE; // positions kept in memory
+
+    /**
+     * The value of a position for the player to move
+     */
+    public static class Evaluation {
+        public final int score;
+        public final MNKCell move; // the best move, null if there was no search
+        public final long nodes;
+
+        Evaluation(int score, MNKCell move, long nodes) {
+            this.score = score;
+            this.move = move;
+            this.nodes = nodes;
+        }
+
+        public String toString() {
+            return move == null ? Integer.toString(score) : score + " " + move.i + "," + move.j;
+        }
+    }
+
+    private final int depth;
+    private final GW[] workers;
+    private final ExecutorService pool;
+    private long positions; // evaluated since the creation
+    private long nanos; // spent evaluating them
+
+    /**
+     * @param depth plies to search, counting the move, 0 for the static evaluation
+     * @param jobs  no. of threads
+     */
+    public BatchEvaluator(int M, int N, int K, int depth, int jobs) {
+        this.depth = depth;
+        workers = new GW[jobs];
+        for (int t = 0; t < jobs; t++) {
+            workers[t] = new GW();
+            workers[t].initPlayer(M, N, K, true, Integer.MAX_VALUE / 1000);
+        }
+        pool = Executors.newFixedThreadPool(jobs);
+    }
+
+    /**
+     * @return the values of the positions, in the same order
+     * @throws IllegalArgumentException if a position is not legal
+     */
+    public List<Evaluation> evaluate(List<MNKCell[]> positions) throws IllegalArgumentException {
+        List<Evaluation> values = new ArrayList<>(positions.size());
+        evaluate(positions.stream(), values::add);
+        return values;
+    }
+
+    /**
+     * Gives the values of the positions to the sink in the order of the stream,
+     * a batch at a time
+     *
+     * @throws IllegalArgumentException if a position is not legal
+     */
+    public void evaluate(Stream<MNKCell[]> positions, Consumer<Evaluation> sink) throws IllegalArgumentException {
+        Iterator<MNKCell[]> it = positions.iterator();
+        List<MNKCell[]> batch = new ArrayList<>(BATCH);
+        long done = 0;
+        while (it.hasNext()) {
+            batch.clear();
+            while (it.hasNext() && batch.size() < BATCH)
+                batch.add(it.next());
+            for (Evaluation e : evaluateBatch(batch, done))
+                sink.accept(e);
+            done += batch.size();
+        }
+    }
+
+    private Evaluation[] evaluateBatch(List<MNKCell[]> batch, long first) {
+        long start = System.nanoTime();
+        Evaluation[] values = new Evaluation[batch.size()];
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> done = new ArrayList<>();
+        for (GW gw : workers) {
+            done.add(pool.submit(() -> {
+                for (int s = next.getAndAdd(SLICE); s < values.length; s = next.getAndAdd(SLICE)) {
+                    for (int x = s; x < Math.min(s + SLICE, values.length); x++) {
+                        try {
+                            gw.setPosition(batch.get(x));
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("Position " + (first + x + 1) + ": " + e.getMessage());
+                        }
+                        MNKCell move = gw.searchPosition(depth);
+                        values[x] = new Evaluation(gw.lastScore(), move, gw.nodes());
+                    }
+                }
+            }));
+        }
+        for (Future<?> f : done) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted");
+            }
+        }
+        positions += values.length;
+        nanos += System.nanoTime() - start;
+        return values;
+    }
+
+    /**
+     * @return the positions evaluated per second since the creation
+     */
+    public double positionsPerSecond() {
+        return nanos == 0 ? 0 : positions * 1e9 / nanos;
+    }
+
+    /**
+     * @return the no. of positions evaluated since the creation
+     */
+    public long positions() {
+        return positions;
+    }
+
+    /**
+     * Stops the threads
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * @return the moves of a position written as i,j separated by spaces, a score
+     *         after a move being ignored
+     */
+    public static MNKCell[] parsePosition(String position) throws IllegalArgumentException {
+        List<MNKCell> moves = new ArrayList<>();
+        for (String move : position.trim().split("\\s+")) {
+            if (move.isEmpty())
+                continue;
+            String[] f = move.split(",");
+            if (f.length < 2)
+                throw new IllegalArgumentException("Illegal move: " + move);
+            try {
+                moves.add(new MNKCell(Integer.parseInt(f[0]), Integer.parseInt(f[1])));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Illegal move: " + move);
+            }
+        }
+        return moves.toArray(new MNKCell[0]);
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: BatchEvaluator [OPTIONS] <M> <N> <K> < positions");
+        System.err.println("  positions    One per line, moves i,j separated by spaces, e.g. \"3,3 2,2 3,4\"");
+        System.err.println("OPTIONS:");
+        System.err.println("  -d <depth>   Search depth, 0 for the static evaluation. Default: 0");
+        System.err.println("  -j <jobs>    Number of threads. Default: no. of processors");
+    }
+
+    public static void main(String[] args) {
+        int depth = 0, jobs = Runtime.getRuntime().availableProcessors();
+        List<Integer> mnk = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("-d") && i + 1 < args.length)
+                    depth = Integer.parseInt(args[++i]);
+                else if (args[i].equals("-j") && i + 1 < args.length)
+                    jobs = Math.max(1, Integer.parseInt(args[++i]));
+                else if (args[i].startsWith("-"))
+                    throw new IllegalArgumentException("Illegal argument: " + args[i]);
+                else
+                    mnk.add(Integer.parseInt(args[i]));
+            }
+            if (mnk.size() != 3 || mnk.get(0) <= 0 || mnk.get(1) <= 0 || mnk.get(2) <= 0)
+                throw new IllegalArgumentException("Expected arguments: <M> <N> <K>, larger than 0");
+        } catch (IllegalArgumentException e) {
+            System.err.println(e);
+            printUsage();
+            System.exit(1);
+        }
+
+        BatchEvaluator evaluator = new BatchEvaluator(mnk.get(0), mnk.get(1), mnk.get(2), depth, jobs);
+        StringBuilder out = new StringBuilder();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            evaluator.evaluate(in.lines().map(BatchEvaluator::parsePosition), e -> {
+                out.append(e).append('\n');
+                if (out.length() > 1 << 16) {
+                    System.out.print(out);
+                    out.setLength(0);
+                }
+            });
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            evaluator.shutdown();
+        }
+        System.out.print(out);
+        System.out.flush();
+        System.err.printf("%d positions, %.0f positions/s%n", evaluator.positions(), evaluator.positionsPerSecond());
+    }
+}
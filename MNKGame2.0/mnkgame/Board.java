@@ -1,5 +1,8 @@
 package mnkgame;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 
@@ -8,15 +11,322 @@ import java.util.LinkedList;
  * board
  */
 public class Board extends MNKBoard {
-    public HashSet<Threat> threats; // rename to threats and delete p2Threats
+    public ThreatSet threats; // packed, see Threat.pack()
     public String boardVisualisation;
 
+    /**
+     * The frontier is the set of free cells within <code>radius</code> (in every
+     * direction) of at least one marked cell. It is kept as a sparse set of cell
+     * indexes (i*N+j) so that adding, removing and iterating cost O(1) per cell.
+     * On a sparse board the per-cell arrays are replaced by hash maps that only
+     * hold the neighbourhoods of the marked cells
+     */
+    public final int radius;
+    private int[] near; // no. of marked cells within radius of each cell
+    private int[] frontier; // dense part of the sparse set
+    private int[] frontierPos; // position of each cell in frontier, -1 if absent
+    private int frontierSize;
+    private IntIntMap nearMap, frontierPosMap, stampMap; // sparse board: near, frontierPos + 1, stamp
+
+    /** Boards of at least this many cells are sparse unless told otherwise */
+    public static final int SPARSE_AREA = 100 * 100;
+
+    private final ThreatPatterns patterns; // null if K is too large to tabulate
+    private final int[] threatCounts = new int[6]; // see getNumberOfThreats()
+    private final int[] line; // cells around the pivot, see readLine()
+    private int[] covered; // no. of threats through each cell, extremities included
+    private IntIntMap coveredMap; // sparse board: covered
+
+    /**
+     * Undo journal of the threat set: every threat removed from or added to the
+     * set by updateThreats(), added ones tagged with JOURNAL_ADDED. The changes
+     * made after the n-th move are journal[journalEnd[n-1]..journalEnd[n]-1],
+     * unmarkCell() takes them back in reverse order
+     */
+    private long[] journal = new long[256];
+    private int journalSize;
+    private int[] journalEnd = new int[64];
+    private boolean recording; // whether the current updateThreats() is journaled
+    private static final long JOURNAL_ADDED = 1L << 63;
+
+    private int[] stamp; // used to skip duplicate cells while generating moves
+    private int stampGen;
+    private final Comparator<MNKCell> byIndex = (a, b) -> Integer.compare(a.i * N + a.j, b.i * N + b.j);
+
     // --------------------------------------------------------------------------------------------------------------------------------------------------
     /* PUBLIC INTERFACE FOR OTHER CLASSES (BELOW) */
 
     public Board(int m, int n, int k) {
-        super(m, n, k);
-        threats = new HashSet<>();
+        this(m, n, k, 1);
+    }
+
+    /**
+     * @param radius how far from a marked cell a free cell can be to still be part
+     *               of the frontier
+     */
+    public Board(int m, int n, int k, int radius) {
+        this(m, n, k, radius, m * n >= SPARSE_AREA);
+    }
+
+    /**
+     * @param radius how far from a marked cell a free cell can be to still be part
+     *               of the frontier
+     * @param sparse whether to keep only the marked cells and their surroundings,
+     *               see MNKBoard
+     */
+    public Board(int m, int n, int k, int radius, boolean sparse) {
+        super(m, n, k, sparse);
+        this.radius = radius;
+        patterns = ThreatPatterns.forK(k);
+        line = new int[2 * k + 5];
+        threats = new ThreatSet();
+        if (sparse) {
+            nearMap = new IntIntMap();
+            frontierPosMap = new IntIntMap();
+            stampMap = new IntIntMap();
+            coveredMap = new IntIntMap();
+            frontier = new int[64];
+        } else {
+            near = new int[m * n];
+            frontier = new int[m * n];
+            frontierPos = new int[m * n];
+            Arrays.fill(frontierPos, -1);
+            stamp = new int[m * n];
+            covered = new int[m * n];
+        }
+    }
+
+    /**
+     * Copy of a board, for instance one per search thread: the threats, the
+     * frontier and the undo journal are copied array by array instead of being
+     * rebuilt by replaying the moves
+     */
+    public Board(Board board) {
+        super(board);
+        radius = board.radius;
+        patterns = board.patterns;
+        line = new int[board.line.length];
+        threats = new ThreatSet(board.threats);
+        System.arraycopy(board.threatCounts, 0, threatCounts, 0, threatCounts.length);
+        boardVisualisation = board.boardVisualisation;
+        frontier = board.frontier.clone();
+        frontierSize = board.frontierSize;
+        if (sparse) {
+            nearMap = new IntIntMap(board.nearMap);
+            frontierPosMap = new IntIntMap(board.frontierPosMap);
+            stampMap = new IntIntMap();
+            coveredMap = new IntIntMap(board.coveredMap);
+        } else {
+            near = board.near.clone();
+            frontierPos = board.frontierPos.clone();
+            stamp = new int[M * N];
+            covered = board.covered.clone();
+        }
+        journal = board.journal.clone();
+        journalSize = board.journalSize;
+        journalEnd = board.journalEnd.clone();
+    }
+
+    /**
+     * @return an immutable copy of the board that threads can read without
+     *         locking
+     */
+    public BoardSnapshot snapshot() {
+        return new BoardSnapshot(this);
+    }
+
+    /**
+     * Marks the cell and updates the frontier around it
+     */
+    @Override
+    public MNKGameState markCell(int i, int j) throws IndexOutOfBoundsException, IllegalStateException {
+        MNKGameState state = super.markCell(i, j);
+        int n = MC.size();
+        if (n == journalEnd.length)
+            journalEnd = Arrays.copyOf(journalEnd, n * 2);
+        journalSize = journalEnd[n - 1];
+        journalEnd[n] = journalSize;
+        frontierRemove(i * N + j);
+        for (int di = -radius; di <= radius; di++) {
+            for (int dj = -radius; dj <= radius; dj++) {
+                int ni = i + di, nj = j + dj;
+                if (ni < 0 || ni >= M || nj < 0 || nj >= N)
+                    continue;
+                int index = ni * N + nj;
+                if (addNear(index, 1) == 1 && stateAt(ni, nj) == MNKCellState.FREE)
+                    frontierAdd(index);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Undoes the last move, updates the frontier around it and takes back the
+     * changes to the threats made by updateThreats() after the move, so there is
+     * no need to call updateThreats() again
+     */
+    @Override
+    public void unmarkCell() throws IllegalStateException {
+        if (MC.isEmpty()) {
+            super.unmarkCell(); // throws
+            return;
+        }
+        MNKCell last = MC.getLast();
+        int n = MC.size();
+        super.unmarkCell();
+        for (int x = journalEnd[n] - 1; x >= journalEnd[n - 1]; x--) {
+            long t = journal[x];
+            if ((t & JOURNAL_ADDED) != 0)
+                uncount(threats.remove(t & ~JOURNAL_ADDED));
+            else { // its window is empty again: the threat added in its place was taken back first
+                threats.add(t);
+                count(t);
+            }
+        }
+        journalSize = journalEnd[n - 1];
+        for (int di = -radius; di <= radius; di++) {
+            for (int dj = -radius; dj <= radius; dj++) {
+                int ni = last.i + di, nj = last.j + dj;
+                if (ni < 0 || ni >= M || nj < 0 || nj >= N)
+                    continue;
+                if (addNear(ni * N + nj, -1) == 0)
+                    frontierRemove(ni * N + nj);
+            }
+        }
+        if (addNear(last.i * N + last.j, 0) > 0)
+            frontierAdd(last.i * N + last.j);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        if (threats == null)
+            return; // still in the constructor of MNKBoard
+        threats.clear();
+        Arrays.fill(threatCounts, 0);
+        journalSize = 0;
+        if (sparse) {
+            nearMap.clear();
+            frontierPosMap.clear();
+            stampMap.clear();
+            coveredMap.clear();
+        } else {
+            Arrays.fill(near, 0);
+            Arrays.fill(frontierPos, -1);
+            Arrays.fill(covered, 0);
+        }
+        frontierSize = 0;
+    }
+
+    /**
+     * The cells worth searching in the current position: the frontier, or every
+     * free cell if nothing has been marked yet.
+     * The array is a snapshot, so the board can be marked and unmarked while
+     * iterating over it
+     * 
+     * @return the free cells within radius of a marked cell
+     */
+    public MNKCell[] getCandidateCells() {
+        if (MC.isEmpty())
+            return getFreeCells();
+
+        MNKCell[] candidates = new MNKCell[frontierSize];
+        for (int x = 0; x < frontierSize; x++)
+            candidates[x] = new MNKCell(frontier[x] / N, frontier[x] % N);
+        return candidates;
+    }
+
+    /**
+     * Move generator driven by the threats on the board, for the player to move:
+     * <ol>
+     * <li>if the player can win right away, only the winning cells</li>
+     * <li>otherwise if the opponent could win with their next move, only the
+     * cells that block it</li>
+     * <li>otherwise the free cells of the player's threats, then the free cells of
+     * the opponent's threats, then the rest of the frontier</li>
+     * </ol>
+     * Each group is sorted by cell index, so the order does not depend on the
+     * iteration order of the sets the moves come from
+     * 
+     * @return the moves worth searching, most promising first
+     */
+    public MoveList getOrderedMoves() {
+        MoveList forced = getForcedMoves();
+        if (forced != null)
+            return forced;
+
+        MNKCellState me = currentPlayer == 0 ? MNKCellState.P1 : MNKCellState.P2;
+        MNKCellState opponent = Player.getOpponent(me);
+        ArrayList<MNKCell> moves = new ArrayList<>(frontierSize);
+        newStampGeneration();
+        addThreatCells(moves, me);
+        int own = moves.size();
+        moves.subList(0, own).sort(byIndex);
+        addThreatCells(moves, opponent);
+        int tactical = moves.size();
+        moves.subList(own, tactical).sort(byIndex);
+        for (MNKCell c : getCandidateCells()) {
+            if (stamp(c.i * N + c.j))
+                moves.add(c);
+        }
+        moves.subList(tactical, moves.size()).sort(byIndex);
+        return new MoveList(moves.toArray(new MNKCell[moves.size()]), tactical, false);
+    }
+
+    /**
+     * The first two cases of getOrderedMoves(): the winning cells of the player
+     * to move or, if there are none, the cells that block the opponent's wins
+     * 
+     * @return the forced moves, null if the position is quiet
+     */
+    public MoveList getForcedMoves() {
+        MNKCellState me = currentPlayer == 0 ? MNKCellState.P1 : MNKCellState.P2;
+
+        MNKCell[] wins = getWinningCells(me);
+        if (wins.length > 0)
+            return new MoveList(wins, wins.length, true);
+
+        MNKCell[] blocks = getWinningCells(Player.getOpponent(me));
+        if (blocks.length > 0)
+            return new MoveList(blocks, blocks.length, true);
+        return null;
+    }
+
+    /**
+     * Reads the cells that complete an alignment of K for the given player off
+     * its k-1 threats: the free extremities of k-1 open and half open threats and
+     * the hole of k-1 half open threats with a jump
+     * 
+     * @param state The player who would mark the cell
+     * @return the cells that would make the player win, without duplicates
+     */
+    public MNKCell[] getWinningCells(MNKCellState state) {
+        ArrayList<MNKCell> wins = new ArrayList<>();
+        newStampGeneration();
+        int owner = state == MNKCellState.P1 ? 1 : (state == MNKCellState.P2 ? 2 : 0);
+        for (int slot = 0; slot < threats.capacity(); slot++) {
+            long t = threats.at(slot);
+            if (t == 0 || Threat.owner(t) != owner || ThreatPatterns.length(Threat.type(t), K) != K - 1)
+                continue;
+            int size = Threat.size(t), i = Threat.startI(t, N), j = Threat.startJ(t, N);
+            int di = Threat.di(Threat.axis(t)), dj = Threat.dj(Threat.axis(t));
+            if (size == K + 2) { // the hole is the only free cell between the extremities
+                for (int x = 1; x < size - 1; x++)
+                    addFree(wins, i + x * di, j + x * dj);
+            } else {
+                addFree(wins, i, j);
+                addFree(wins, i + (size - 1) * di, j + (size - 1) * dj);
+            }
+        }
+        wins.sort(byIndex);
+        return wins.toArray(new MNKCell[wins.size()]);
+    }
+
+    /**
+     * @return the number of cells in the frontier
+     */
+    public int frontierSize() {
+        return frontierSize;
     }
 
     /**
@@ -42,15 +352,36 @@ public class Board extends MNKBoard {
      * list of all possible threats stemming from that pivot cell
      * and keeps the ones that follow the definition of k-1 open, k-2 open or k-1
      * half open threat.
-     * It assumes it was run on all previous moves before this
+     * Windows are classified with the ThreatPatterns tables when K allows it.
+     * It assumes it was run on all previous moves before this.
+     * The changes are journaled when the pivot is the last move, see unmarkCell()
      */
     public void updateThreats(MNKCell pivot) {
-        threats = deleteThreatsContaining(pivot);
+        MNKCell last = MC.peekLast();
+        recording = last != null && last.i == pivot.i && last.j == pivot.j;
+        journalSize = journalEnd[MC.size()];
+        updateThreatsThrough(pivot);
+        if (recording)
+            journalEnd[MC.size()] = journalSize;
+    }
+
+    private void updateThreatsThrough(MNKCell pivot) {
+        deleteThreatsContaining(pivot);
+        if (patterns != null) {
+            for (Axis axis : Axis.values()) {
+                readLine(pivot, axis);
+                addThreatsOnLine(pivot, axis);
+            }
+            return;
+        }
         LinkedList<Threat> apt = getAllPossibleThreats(pivot);
 
         for (Threat t : apt) {
             if (isThreat(t)) {
-                threats.add(t);
+                MNKCell first = t.cells.getFirst();
+                MNKCellState owner = t.state();
+                addThreat(Threat.pack(first.i, first.j, N, t.axis, t.cells.size(),
+                        owner == MNKCellState.P1 ? 1 : (owner == MNKCellState.P2 ? 2 : 0), classify(t)));
             }
         }
     }
@@ -67,42 +398,18 @@ public class Board extends MNKBoard {
      * </ol>
      */
     public int[] getNumberOfThreats() {
-        int[] th = new int[6];
-
-        for (Threat t : threats) {
-            int index = -1;
-            if (isOpenThreat(t)) {
-                if (t.size() == K - 1)
-                    index = 0;
-                else if (t.size() == K - 2)
-                    index = 2;
-            } else if (isHalfOpenThreat(t))
-                index = 1;
-
-            if (index >= 0 && index <= 2) {
-                if (t.state() == MNKCellState.P1)
-                    ;
-                else if (t.state() == MNKCellState.P2)
-                    index += 3;
-
-                th[index]++;
-            }
-        }
-        return th;
+        return threatCounts.clone(); // kept up to date as threats are added and deleted
     }
 
     /**
-     * Gets the set of all free cells adjacent to the marked cells and in bounds
+     * Gets the set of all free cells within radius of the marked cells and in
+     * bounds (the frontier)
      * @return
      */
     public HashSet<MNKCell> contour(){
         HashSet<MNKCell> contour = new HashSet<>();
-        for(MNKCell mc : MC){
-            for(Direction d : Direction.values()){
-                MNKCell adj = getAdjacentCell(mc, d, 1);
-                if(adj.state == MNKCellState.FREE && contains(adj)) contour.add(adj);
-            }
-        }
+        for (int x = 0; x < frontierSize; x++)
+            contour.add(new MNKCell(frontier[x] / N, frontier[x] % N));
         return contour;
     }
 
@@ -230,6 +537,24 @@ public class Board extends MNKBoard {
         }
     }
 
+    /**
+     * @return the index of the threat in getNumberOfThreats(), -1 if it is not counted
+     */
+    private int classify(Threat t) {
+        int index = -1;
+        if (isOpenThreat(t)) {
+            if (t.size() == K - 1)
+                index = 0;
+            else if (t.size() == K - 2)
+                index = 2;
+        } else if (isHalfOpenThreat(t))
+            index = 1;
+
+        if (index >= 0 && t.state() == MNKCellState.P2)
+            index += 3;
+        return index;
+    }
+
     /**
      * 
      * @param t
@@ -304,22 +629,138 @@ public class Board extends MNKBoard {
     }
 
     /**
-     * Creates a new set of threats containing only the ones that don't contain the
-     * pivot
-     * 
-     * @param pivot The whose change in state will affect the set of threats
-     * @return The set of threats on the board which are in no way affected by the
-     *         pivot changing
+     * Table driven version of getAllPossibleThreats() and isThreat() for one
+     * axis: reads the type of every window through the pivot off its code in
+     * line, which has to hold the cells of the axis (see readLine())
+     */
+    private void addThreatsOnLine(MNKCell pivot, Axis axis) {
+        int di = Threat.di(axis), dj = Threat.dj(axis);
+        for (int size = K; size <= K + 2; size++) {
+            for (int t = 0; t < size; t++) {
+                int code = windowCode(K + 2 - t, size);
+                if (code < 0)
+                    continue;
+                int type = patterns.type(size, code);
+                if (type < 0)
+                    continue;
+                int owner = line[K + 2 - t + 1];
+                addThreat(Threat.pack(pivot.i - t * di, pivot.j - t * dj, N, axis, size, owner, type));
+            }
+        }
+    }
+
+    /**
+     * Reads the states of the cells within K+2 of the pivot along the axis into
+     * line: 0 free, 1 P1, 2 P2, 3 out of bounds, the pivot at index K+2
+     */
+    private void readLine(MNKCell pivot, Axis axis) {
+        int di = Threat.di(axis), dj = Threat.dj(axis);
+        for (int p = -(K + 2), x = 0; p <= K + 2; p++, x++) {
+            int i = pivot.i + p * di, j = pivot.j + p * dj;
+            if (!inBounds(i, j))
+                line[x] = 3;
+            else {
+                MNKCellState state = stateAt(i, j);
+                line[x] = state == MNKCellState.FREE ? 0 : (state == MNKCellState.P1 ? 1 : 2);
+            }
+        }
+    }
+
+    /**
+     * @return the base 3 code of the window of <code>size</code> cells of line
+     *         starting at <code>start</code>, -1 if an inner cell is out of bounds
      */
-    private HashSet<Threat> deleteThreatsContaining(MNKCell pivot) {
-        HashSet<Threat> nonAffectedThreats = new HashSet<>();
+    private int windowCode(int start, int size) {
+        if (line[start + 1] == 3 || line[start + size - 2] == 3)
+            return -1;
+        int code = 0;
+        for (int p = 0; p < size; p++) {
+            int s = line[start + p];
+            code += (s == 3 ? 2 : s) * patterns.pow3[p]; // an extremity off the board blocks like a stone
+        }
+        return code;
+    }
+
+    private boolean inBounds(int i, int j) {
+        return i >= 0 && i < M && j >= 0 && j < N;
+    }
+
+    private void addThreat(long t) {
+        long old = threats.add(t); // 0: the windows through the pivot were emptied first
+        if (old != 0) {
+            uncount(old);
+            record(old);
+        }
+        count(t);
+        record(t | JOURNAL_ADDED);
+    }
+
+    private void record(long change) {
+        if (!recording)
+            return;
+        if (journalSize == journal.length)
+            journal = Arrays.copyOf(journal, journalSize * 2);
+        journal[journalSize++] = change;
+    }
+
+    // takes a threat that entered the set into the counts
+    private void count(long t) {
+        if (Threat.type(t) >= 0)
+            threatCounts[Threat.type(t)]++;
+        cover(t, 1);
+    }
+
+    // takes a threat that left the set out of the counts
+    private void uncount(long t) {
+        if (Threat.type(t) >= 0)
+            threatCounts[Threat.type(t)]--;
+        cover(t, -1);
+    }
 
-        for (Threat t : this.threats) {
-            if (!t.contains(pivot))
-                nonAffectedThreats.add(t);
+    // adds delta to the no. of threats through each in bounds cell of t
+    private void cover(long t, int delta) {
+        int i = Threat.startI(t, N), j = Threat.startJ(t, N);
+        int di = Threat.di(Threat.axis(t)), dj = Threat.dj(Threat.axis(t));
+        for (int x = 0; x < Threat.size(t); x++, i += di, j += dj) {
+            if (inBounds(i, j))
+                addCovered(i * N + j, delta);
         }
+    }
 
-        return nonAffectedThreats;
+    // adds delta to the no. of threats through the cell and returns it
+    private int addCovered(int index, int delta) {
+        if (sparse)
+            return delta == 0 ? coveredMap.get(index) : coveredMap.add(index, delta);
+        return covered[index] += delta;
+    }
+
+    /**
+     * Deletes the threats that contain the pivot. Each window through the pivot
+     * holds at most one threat, so they are looked up by window in the set
+     * instead of testing every threat on the board, and the lookup stops as soon
+     * as all the threats through the pivot are gone
+     * 
+     * @param pivot The whose change in state will affect the set of threats
+     */
+    private void deleteThreatsContaining(MNKCell pivot) {
+        int left = addCovered(pivot.i * N + pivot.j, 0);
+        for (Axis axis : Axis.values()) {
+            int di = Threat.di(axis), dj = Threat.dj(axis);
+            for (int size = K; size <= K + 2; size++) {
+                for (int t = 0; t < size && left > 0; t++) {
+                    int si = pivot.i - t * di, sj = pivot.j - t * dj;
+                    // threats only lie where their inner cells are in bounds
+                    if (!inBounds(si + di, sj + dj) || !inBounds(si + (size - 2) * di, sj + (size - 2) * dj))
+                        continue;
+                    long old = threats.remove(Threat.pack(si, sj, N, axis, size, 0, -1));
+                    if (old != 0) {
+                        uncount(old);
+                        record(old);
+                        left--;
+                    }
+                }
+            }
+        }
     }
 
     // --------------------------------------------------------------------------------------------------------------------------------------------------
@@ -396,19 +837,98 @@ public class Board extends MNKBoard {
     /* CELL PROPERTIES (ABOVE) */
     // --------------------------------------------------------------------------------------------------------------------------------------------------
 
+    /* FRONTIER (BELOW) */
+    // --------------------------------------------------------------------------------------------------------------------------------------------------
+
+    private void frontierAdd(int index) {
+        if (frontierPos(index) >= 0)
+            return;
+        if (frontierSize == frontier.length)
+            frontier = Arrays.copyOf(frontier, 2 * frontierSize); // only on a sparse board
+        setFrontierPos(index, frontierSize);
+        frontier[frontierSize++] = index;
+    }
+
+    // swaps the last element of the dense part in place of the removed one
+    private void frontierRemove(int index) {
+        int pos = frontierPos(index);
+        if (pos < 0)
+            return;
+        int last = frontier[--frontierSize];
+        frontier[pos] = last;
+        setFrontierPos(last, pos);
+        setFrontierPos(index, -1);
+    }
+
+    private int frontierPos(int index) {
+        return sparse ? frontierPosMap.get(index) - 1 : frontierPos[index];
+    }
+
+    private void setFrontierPos(int index, int pos) {
+        if (sparse)
+            frontierPosMap.put(index, pos + 1);
+        else
+            frontierPos[index] = pos;
+    }
+
+    // adds delta to the no. of marked cells near the cell and returns it
+    private int addNear(int index, int delta) {
+        if (sparse)
+            return delta == 0 ? nearMap.get(index) : nearMap.add(index, delta);
+        return near[index] += delta;
+    }
+
+    // adds the free and in bounds cells of the threats of the given player
+    private void addThreatCells(ArrayList<MNKCell> moves, MNKCellState state) {
+        int owner = state == MNKCellState.P1 ? 1 : (state == MNKCellState.P2 ? 2 : 0);
+        for (int slot = 0; slot < threats.capacity(); slot++) {
+            long t = threats.at(slot);
+            if (t == 0 || Threat.owner(t) != owner)
+                continue;
+            int i = Threat.startI(t, N), j = Threat.startJ(t, N);
+            int di = Threat.di(Threat.axis(t)), dj = Threat.dj(Threat.axis(t));
+            for (int x = 0; x < Threat.size(t); x++)
+                addFree(moves, i + x * di, j + x * dj);
+        }
+    }
+
+    // adds the cell if it is in bounds, free and not stamped yet
+    private void addFree(ArrayList<MNKCell> cells, int i, int j) {
+        if (inBounds(i, j) && stateAt(i, j) == MNKCellState.FREE && stamp(i * N + j))
+            cells.add(new MNKCell(i, j));
+    }
+
+    private void newStampGeneration() {
+        stampGen++;
+        if (sparse)
+            stampMap.clear(); // costs as much as the cells stamped by the last generation
+    }
+
+    // returns true the first time a cell index is seen since the last stampGen++
+    private boolean stamp(int index) {
+        if (sparse)
+            return stampMap.put(index, 1) == 0;
+        if (stamp[index] == stampGen)
+            return false;
+        stamp[index] = stampGen;
+        return true;
+    }
+
+    /* FRONTIER (ABOVE) */
+    // --------------------------------------------------------------------------------------------------------------------------------------------------
+
     public void updateBoardVisualisation() {
         StringBuilder sb = new StringBuilder("\n");
-        int i = 0;
-        for (MNKCellState[] row : B) {
+        for (int i = 0; i < M; i++) {
             sb.append(i + " \t");
-            for (MNKCellState c : row) {
+            for (int j = 0; j < N; j++) {
+                MNKCellState c = stateAt(i, j);
                 if (c == MNKCellState.FREE)
                     sb.append(c.toString().substring(0, 2) + "\t");
                 else
                     sb.append(c.toString().substring(0, 2) + "\t");
             }
             sb.append("\n");
-            i++;
         }
         boardVisualisation = sb.toString();
     }
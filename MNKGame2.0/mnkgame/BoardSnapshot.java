@@ -0,0 +1,71 @@
+package mnkgame;
+
+/**
+ * Immutable view of a Board at some point of a game. It holds its own copy of
+ * the board, which nothing ever modifies, and exposes only the methods that do
+ * not write to it, so any number of threads can read the same snapshot without
+ * locking. toBoard() gives a thread a board of its own to play on
+ */
+public final class BoardSnapshot {
+    public final int M, N, K;
+    private final Board board;
+
+    BoardSnapshot(Board board) {
+        this.board = new Board(board);
+        M = board.M;
+        N = board.N;
+        K = board.K;
+    }
+
+    /**
+     * @return a new board in the state of the snapshot
+     */
+    public Board toBoard() {
+        return new Board(board);
+    }
+
+    /**
+     * @throws IndexOutOfBoundsException If <code>i,j</code> are out of matrix bounds
+     */
+    public MNKCellState cellState(int i, int j) {
+        return board.cellState(i, j);
+    }
+
+    public MNKGameState gameState() {
+        return board.gameState();
+    }
+
+    /**
+     * @return 0 (first player) or 1 (second player)
+     */
+    public int currentPlayer() {
+        return board.currentPlayer();
+    }
+
+    /**
+     * @return the moves of the game, first to last
+     */
+    public MNKCell[] getMarkedCells() {
+        return board.getMarkedCells();
+    }
+
+    /**
+     * @see Board#getNumberOfThreats()
+     */
+    public int[] getNumberOfThreats() {
+        return board.getNumberOfThreats();
+    }
+
+    /**
+     * @return the threats on the board, packed (see Threat.pack())
+     */
+    public long[] getThreats() {
+        long[] threats = new long[board.threats.size()];
+        int n = 0;
+        for (int slot = 0; slot < board.threats.capacity(); slot++) {
+            if (board.threats.at(slot) != 0)
+                threats[n++] = board.threats.at(slot);
+        }
+        return threats;
+    }
+}
@@ -0,0 +1,204 @@
+package mnkgame;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MNKPlayer that plays through an MNKEngineServer process, so that many games can be
+ * played by warm engines: the processes are kept in a pool and every game borrows one.
+ * A process goes back to the pool as soon as the game is over: when the reply of the
+ * engine ends it, or when close() is called (MNKPlayerTester and MNKGame do it at the end
+ * of every game), or else when the player is initialised again or garbage collected. It
+ * is thrown away if it was still thinking. A new process plays a warm-up move before its
+ * first game, so that the start of the JVM does not count against a move. The pool is
+ * emptied when the JVM exits.
+ * <p>
+ * The engine plays the MNKPlayer class of the system property <code>engine.player</code>,
+ * GW by default, and runs with the class path and Java of this JVM and its gw.* system
+ * properties.
+ * </p>
+ */
+public class EngineProcessPlayer implements MNKPlayer, AutoCloseable {
+    private static final String PLAYER = System.getProperty("engine.player", "mnkgame.GW");
+    private static final ConcurrentLinkedQueue<Engine> IDLE = new ConcurrentLinkedQueue<>();
+    private static final Set<Engine> ALL = ConcurrentHashMap.newKeySet();
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Engine e : ALL)
+                e.close();
+        }));
+    }
+
+    private Engine engine;
+    private Cleaner.Cleanable release; // returns the engine, null if there is none
+    private boolean first;
+    private MNKBoard B; // the moves of the game the engine knows
+
+    public void initPlayer(int M, int N, int K, boolean first, int timeout_in_secs) {
+        close();
+        engine = borrow();
+        release = CLEANER.register(this, new Release(engine));
+        this.first = first;
+        B = new MNKBoard(M, N, K);
+        engine.send("INFO timeout_turn " + timeout_in_secs * 1000L);
+        engine.send("INFO k " + K);
+        String reply = engine.request("RECTSTART " + N + "," + M);
+        if (!reply.equals("OK"))
+            throw new IllegalStateException("engine: " + reply);
+    }
+
+    public MNKCell selectCell(MNKCell[] FC, MNKCell[] MC) {
+        int known = B.MC.size();
+        String reply;
+        if (MC.length == 0)
+            reply = engine.request("BEGIN");
+        else if (MC.length == known + 1)
+            reply = engine.request("TURN " + MC[known].j + "," + MC[known].i);
+        else { // the engine is behind by more than a move, e.g. after an opening
+            StringBuilder sb = new StringBuilder("BOARD");
+            for (int x = 0; x < MC.length; x++)
+                sb.append('\n').append(MC[x].j).append(',').append(MC[x].i).append(',').append((x % 2 == 0) == first ? 1 : 2);
+            reply = engine.request(sb.append("\nDONE").toString());
+        }
+        MNKCell c;
+        String[] f = reply.split(",");
+        try {
+            c = new MNKCell(Integer.parseInt(f[1].trim()), Integer.parseInt(f[0].trim()));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("engine: " + reply);
+        }
+        for (int x = known; x < MC.length; x++)
+            B.markCell(MC[x].i, MC[x].j);
+        try {
+            if (B.markCell(c.i, c.j) != MNKGameState.OPEN)
+                close(); // the engine is not needed any more
+        } catch (IndexOutOfBoundsException | IllegalStateException e) {
+            // an illegal move: the caller reports it
+        }
+        return c;
+    }
+
+    /**
+     * Gives the engine back to the pool, to be called when the game is over
+     */
+    public void close() {
+        if (release == null)
+            return;
+        release.clean();
+        release = null;
+        engine = null;
+    }
+
+    public String playerName() {
+        return PLAYER.substring(PLAYER.lastIndexOf('.') + 1) + " (engine)";
+    }
+
+    private static Engine borrow() {
+        for (Engine e = IDLE.poll(); e != null; e = IDLE.poll()) {
+            if (e.process.isAlive())
+                return e;
+            e.close();
+        }
+        Engine e;
+        try {
+            e = new Engine();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("cannot start the engine", ex);
+        }
+        // warm-up: JVM start, class loading and a first search on a small board
+        e.request("ABOUT");
+        e.send("INFO timeout_turn 1000");
+        e.send("INFO k 3");
+        e.request("RECTSTART 3,3");
+        e.request("BEGIN");
+        return e;
+    }
+
+    // returns the engine to the pool; must not refer to the player
+    private static class Release implements Runnable {
+        private final Engine engine;
+
+        Release(Engine engine) {
+            this.engine = engine;
+        }
+
+        public void run() {
+            if (engine.pending || !engine.process.isAlive())
+                engine.close();
+            else
+                IDLE.add(engine);
+        }
+    }
+
+    private static class Engine {
+        final Process process;
+        final BufferedReader in;
+        final PrintWriter out;
+        volatile boolean pending; // a request is waiting for its reply
+
+        Engine() throws IOException {
+            List<String> cmd = new ArrayList<>();
+            cmd.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            for (String key : System.getProperties().stringPropertyNames()) {
+                if (key.startsWith("gw."))
+                    cmd.add("-D" + key + "=" + System.getProperty(key));
+            }
+            cmd.add("-cp");
+            cmd.add(System.getProperty("java.class.path"));
+            cmd.add("mnkgame.MNKEngineServer");
+            cmd.add(PLAYER);
+            process = new ProcessBuilder(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            out = new PrintWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8), true);
+            ALL.add(this);
+        }
+
+        void send(String command) {
+            out.println(command);
+        }
+
+        // sends the command and returns its reply, skipping the MESSAGE and DEBUG lines
+        String request(String command) {
+            pending = true;
+            send(command);
+            try {
+                for (String line = in.readLine(); line != null; line = in.readLine()) {
+                    if (line.startsWith("MESSAGE") || line.startsWith("DEBUG"))
+                        continue;
+                    pending = false;
+                    return line;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("engine", e);
+            }
+            throw new IllegalStateException("the engine exited");
+        }
+
+        void close() {
+            ALL.remove(this);
+            out.println("END");
+            try {
+                if (!process.waitFor(1, TimeUnit.SECONDS))
+                    process.destroyForcibly();
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
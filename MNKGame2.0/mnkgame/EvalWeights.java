@@ -0,0 +1,107 @@
+package mnkgame;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * The weights of GW.evaluate. A weight profile is a properties file named
+ * <code>M_N_K.properties</code> in the directory given by the system property
+ * gw.weights (default <code>weights</code>); the default weights are used for the
+ * (M,N,K) classes without a profile and for the keys a profile does not set
+ */
+public class EvalWeights {
+    public static final String[] NAMES = { "km1otStateParam", "km1hotStateParam", "km2otStateParam",
+            "km1otOpponentParam", "km1hotOpponentParam", "km2otOpponentParam" };
+
+    public int victoryParam = 1000000;
+
+    // weights of P1's k-1 open, k-1 half open and k-2 open threats
+    public int km1otStateParam = 250;
+    public int km1hotStateParam = 80;
+    public int km2otStateParam = 100;
+
+    // weights of P2's k-1 open, k-1 half open and k-2 open threats
+    public int km1otOpponentParam = 5020;
+    public int km1hotOpponentParam = 2000;
+    public int km2otOpponentParam = 1300;
+
+    /**
+     * @return the threat weights in the order of NAMES, which is the order of
+     *         Board.getNumberOfThreats()
+     */
+    public int[] threatWeights() {
+        return new int[] { km1otStateParam, km1hotStateParam, km2otStateParam, km1otOpponentParam,
+                km1hotOpponentParam, km2otOpponentParam };
+    }
+
+    public void setThreatWeights(int[] w) {
+        km1otStateParam = w[0];
+        km1hotStateParam = w[1];
+        km2otStateParam = w[2];
+        km1otOpponentParam = w[3];
+        km1hotOpponentParam = w[4];
+        km2otOpponentParam = w[5];
+    }
+
+    /**
+     * @return the path of the profile of the (M,N,K) class
+     */
+    public static Path profile(int M, int N, int K) {
+        return Paths.get(System.getProperty("gw.weights", "weights"), M + "_" + N + "_" + K + ".properties");
+    }
+
+    /**
+     * @return the profile of the (M,N,K) class, the default weights if there is none
+     *         or it cannot be read
+     */
+    public static EvalWeights load(int M, int N, int K) {
+        EvalWeights w = new EvalWeights();
+        Path file = profile(M, N, K);
+        if (!Files.isReadable(file))
+            return w;
+        Properties p = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            p.load(in);
+            w.victoryParam = Integer.parseInt(p.getProperty("victoryParam", String.valueOf(w.victoryParam)).trim());
+            int[] threats = w.threatWeights();
+            for (int x = 0; x < NAMES.length; x++)
+                threats[x] = Integer.parseInt(p.getProperty(NAMES[x], String.valueOf(threats[x])).trim());
+            w.setThreatWeights(threats);
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Ignoring weight profile " + file + ": " + e);
+            return new EvalWeights();
+        }
+        return w;
+    }
+
+    /**
+     * Writes the weights as the profile of the (M,N,K) class
+     */
+    public void save(int M, int N, int K, String comment) throws IOException {
+        Path file = profile(M, N, K);
+        if (file.getParent() != null)
+            Files.createDirectories(file.getParent());
+        Properties p = new Properties();
+        p.setProperty("victoryParam", String.valueOf(victoryParam));
+        int[] threats = threatWeights();
+        for (int x = 0; x < NAMES.length; x++)
+            p.setProperty(NAMES[x], String.valueOf(threats[x]));
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            p.store(out, comment);
+        }
+    }
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("victoryParam=" + victoryParam);
+        int[] threats = threatWeights();
+        for (int x = 0; x < NAMES.length; x++)
+            sb.append(" " + NAMES[x] + "=" + threats[x]);
+        return sb.toString();
+    }
+}
@@ -1,7 +1,10 @@
 package mnkgame;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Draft implementation of an mnk-player
@@ -9,11 +12,53 @@ import java.util.LinkedList;
  * @author Davide Iacomino
  * @author Leonie Brockmann
  */
-public class GW implements MNKPlayer {
+public class GW implements MNKPlayer, Instrumented {
     protected Board board;
     protected int timeout;
     protected int insurance;
     Player player;
+    protected EvalWeights weights = new EvalWeights(); // the profile of the (M,N,K) class, see initPlayer()
+
+    /**
+     * Deterministic mode: when either limit is set the search ignores the clock, so the
+     * same position always yields the same tree. Both default to the system properties
+     * gw.depth and gw.nodes, 0 means no limit
+     */
+    protected int fixedDepth = Integer.getInteger("gw.depth", 0);
+    protected long nodeBudget = Long.getLong("gw.nodes", 0);
+    protected long nodes; // alphaBeta and quiescence nodes, see nodes()
+
+    /**
+     * Plies of forced moves searched past the depth limit, see quiescence(). Defaults
+     * to the system property gw.qdepth, 0 turns the extension off
+     */
+    protected int quiescenceDepth = Integer.getInteger("gw.qdepth", 4);
+
+    /**
+     * Late-move reductions, see reduction(). Default to the system properties
+     * gw.lmr.depth, gw.lmr.moves, gw.lmr.late and gw.lmr.reduction, a reduction
+     * of 0 turns them off
+     */
+    protected int lmrDepth = Integer.getInteger("gw.lmr.depth", 3);
+    protected int lmrMoves = Integer.getInteger("gw.lmr.moves", 3);
+    protected int lmrLateMoves = Integer.getInteger("gw.lmr.late", 8);
+    protected int lmrReduction = Integer.getInteger("gw.lmr.reduction", 1);
+    protected int completedDepth; // deepest iteration completed by the last iterativeDeepening(), in plies
+    protected int score; // value of the move returned by the last iterativeDeepening()
+    private int driverValue; // value of the move returned by the last searchDriver()
+
+    private long deadline; // System.currentTimeMillis() at which any search stops, 0 if none
+    private AtomicLong sharedNodes; // nodes of all the players sharing the node budget, null if none
+    private long sharedFlushed; // the part of nodes already added to sharedNodes
+
+    // principal variation of searchLine(): pv[p] holds the best line found from ply p,
+    // in pv[p][p..pvLength[p]-1]. null when no line is tracked
+    private MNKCell[][] pv;
+    private int[] pvLength;
+    private int pvRoot; // no. of marked cells at the root of searchLine()
+
+    protected boolean statsEnabled = Boolean.getBoolean("gw.stats");
+    protected SearchStats stats; // statistics of the current search, null if disabled
 
     /**
      * @param M no. of rows in the board
@@ -24,6 +69,7 @@ public class GW implements MNKPlayer {
      */
     public void initPlayer(int M, int N, int K, boolean first, int timeout_in_secs) {
         board = new Board(M, N, K);
+        weights = EvalWeights.load(M, N, K);
         timeout = timeout_in_secs;
         if(M*N >= 2500) insurance = timeout/20;
         else insurance = timeout/10; 
@@ -34,6 +80,128 @@ public class GW implements MNKPlayer {
             player = new Player(1);
     }
 
+    /**
+     * Searches exactly <code>depth</code> plies (0 to go back to the time limit)
+     */
+    public void setFixedDepth(int depth) {
+        fixedDepth = depth;
+    }
+
+    /**
+     * Searches at most <code>plies</code> forced moves past the depth limit (0 to stop at the limit)
+     */
+    public void setQuiescenceDepth(int plies) {
+        quiescenceDepth = plies;
+    }
+
+    /**
+     * Sets the late-move reductions, see reduction()
+     * 
+     * @param depth     the least depth at which moves are reduced
+     * @param moves     the index of the first move that can be reduced
+     * @param lateMoves the index from which moves are reduced one ply more
+     * @param reduction the plies taken off, 0 to turn the reductions off
+     */
+    public void setLateMoveReductions(int depth, int moves, int lateMoves, int reduction) {
+        lmrDepth = depth;
+        lmrMoves = moves;
+        lmrLateMoves = lateMoves;
+        lmrReduction = reduction;
+    }
+
+    /**
+     * Stops the search after <code>nodes</code> alphaBeta calls (0 to go back to the time limit)
+     */
+    public void setNodeBudget(long nodes) {
+        nodeBudget = nodes;
+    }
+
+    /**
+     * Makes the node budget a total for all the players given the same counter, e.g. the
+     * threads of an analysis: each adds its nodes to it, a few hundred at a time
+     *
+     * @param counter the shared count of nodes, null to go back to a budget of this player
+     */
+    public void shareNodeBudget(AtomicLong counter) {
+        sharedNodes = counter;
+        sharedFlushed = nodes;
+    }
+
+    /**
+     * Stops every search at the given time, on top of the other limits (0 for no deadline)
+     * 
+     * @param millis a time as given by System.currentTimeMillis()
+     */
+    public void setDeadline(long millis) {
+        deadline = millis;
+    }
+
+    /**
+     * @return the number of nodes visited by the last iterativeDeepening() or
+     *         searchPosition(), or by all the searchLine() and analyse() calls since
+     *         then: these add to the count, and the node budget applies to the total
+     */
+    public long nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return the value of the move returned by the last search, from this player's
+     *         point of view, as found by the deepest completed iteration (the static
+     *         evaluation of the position if the move was forced)
+     */
+    public int lastScore() {
+        return score;
+    }
+
+    /**
+     * @return whether lastScore() comes from a search, false if the move was forced
+     *         or no iteration completed
+     */
+    public boolean lastSearched() {
+        return completedDepth > 0;
+    }
+
+    public void setStatsEnabled(boolean enabled) {
+        statsEnabled = enabled;
+        if (!enabled)
+            stats = null;
+    }
+
+    public SearchStats lastSearchStats() {
+        return stats;
+    }
+
+    private boolean deterministic() {
+        return fixedDepth > 0 || nodeBudget > 0;
+    }
+
+    /**
+     * @param initialTime the time when iterativeDeepening() was called
+     * @return true if the search has to stop: the node budget is exhausted in
+     *         deterministic mode, the time is up otherwise
+     */
+    private boolean outOfTime(double initialTime) {
+        if (deadline > 0 && System.currentTimeMillis() >= deadline)
+            return true;
+        if (deterministic())
+            return nodeBudget > 0 && spentNodes() >= nodeBudget;
+        return !(((System.currentTimeMillis() - initialTime) / 1000.0) < timeout-insurance);
+    }
+
+    // the nodes counted against the budget: of this player, or of all the players sharing it
+    private long spentNodes() {
+        if (sharedNodes == null)
+            return nodes;
+        if (nodes < sharedFlushed) // a new search reset the count
+            sharedFlushed = 0;
+        if (nodes - sharedFlushed >= 256) {
+            sharedNodes.addAndGet(nodes - sharedFlushed);
+            sharedFlushed = nodes;
+        }
+        return sharedNodes.get();
+    }
+
     public MNKCell depthLimitedSearch(Board b, int depth, int itDepthMax) {
         MNKCell optimalCell = b.getFreeCells()[0];
 
@@ -45,9 +213,8 @@ public class GW implements MNKPlayer {
                     optimalCell = depthLimitedSearch(b, depth+1, itDepthMax);
                 }
                 b.unmarkCell();
-                b.updateThreats(b.getCellAt(freeCell.i, freeCell.j));
             } else {
-                return searchDriver(itDepthMax, 0, new LinkedList<>()); // 0 placeholder value
+                return searchDriver(itDepthMax, 0, new LinkedList<>(Arrays.asList(b.getCandidateCells()))); // 0 placeholder value
             }
         }
 
@@ -82,21 +249,22 @@ public class GW implements MNKPlayer {
      * It gives the most value to k-1 open threat (which give the player 2 ways of winning in the next move)
      * It gives an intermediate value to k-2 open threat because they have the potential to become at least a k-1 half open threat and in the best case a k-1 open threat
      * It gives the least value to k-1 half open threat because they can be easily blocked in one move
+     * The weights come from the profile loaded by initPlayer(), see EvalWeights
      * @param b The board to analyse
      * @param state The player for which to return the likeliness of winning
      * @return A number between -1 000 000 and 1 000 000 from sure loss to sure win and everything in between
      */
     //evaluate will always expect you to have evaluated the threats in all previous turns
     public int evaluate(Board b, MNKCellState state) {
-        final int victoryParam = 1000000;
+        final int victoryParam = weights.victoryParam;
 
-        final int km1otStateParam = 250;
-        final int km1hotStateParam = 80;
-        final int km2otStateParam = 100;
+        final int km1otStateParam = weights.km1otStateParam;
+        final int km1hotStateParam = weights.km1hotStateParam;
+        final int km2otStateParam = weights.km2otStateParam;
 
-        final int km1otOpponentParam = 5020;
-        final int km1hotOpponentParam = 2000;
-        final int km2otOpponentParam = 1300;
+        final int km1otOpponentParam = weights.km1otOpponentParam;
+        final int km1hotOpponentParam = weights.km1hotOpponentParam;
+        final int km2otOpponentParam = weights.km2otOpponentParam;
 
         int stateVictories = b.getVictories(state);
         int opponentVictories = b.getVictories(Player.getOpponent(state));
@@ -128,36 +296,312 @@ public class GW implements MNKPlayer {
      */
     public Integer alphaBeta(Board b, boolean max, Integer alpha, Integer beta, int depth, double initialTime) {
         Integer eval;
-        if (b.gameState != MNKGameState.OPEN || depth == 0 || !(((System.currentTimeMillis() - initialTime) / 1000.0) < timeout-insurance))
-            return evaluate(board, player.state());
-        else if (max) {
+        int searched = 0;
+        nodes++;
+        int ply = pvStart(b);
+        if (b.gameState != MNKGameState.OPEN || outOfTime(initialTime))
+            return leafValue(board);
+        else if (depth == 0)
+            return quiescence(b, max, alpha, beta, quiescenceDepth, initialTime);
+        MoveList moves = orderedMoves(b);
+        if (max) {
             eval = Integer.MIN_VALUE;
-            for (MNKCell freeCell : b.getFreeCells()) {
+            for (MNKCell freeCell : moves.cells) {
                 b.markCell(freeCell.i, freeCell.j);
-                b.updateThreats(b.getCellAt(freeCell.i, freeCell.j));
-                eval = Integer.max(eval, alphaBeta(b, false, alpha, beta, depth - 1, initialTime));
+                updateThreats(b, b.getCellAt(freeCell.i, freeCell.j));
+                int value = searchMove(b, true, alpha, beta, depth, reduction(moves, searched, depth), initialTime);
                 b.unmarkCell();
-                b.updateThreats(b.getCellAt(freeCell.i, freeCell.j));
+                if (value > eval) {
+                    eval = value;
+                    pvUpdate(ply, freeCell);
+                }
                 alpha = Integer.max(eval, alpha);
+                searched++;
                 if (alpha >= beta)
                     break;
             }
         } else {
             eval = Integer.MAX_VALUE;
-            for (MNKCell freeCell : b.getFreeCells()) {
+            for (MNKCell freeCell : moves.cells) {
                 b.markCell(freeCell.i, freeCell.j);
-                b.updateThreats(b.getCellAt(freeCell.i, freeCell.j));
-                eval = Integer.min(eval, alphaBeta(b, true, alpha, beta, depth - 1, initialTime));
+                updateThreats(b, b.getCellAt(freeCell.i, freeCell.j));
+                int value = searchMove(b, false, alpha, beta, depth, reduction(moves, searched, depth), initialTime);
                 b.unmarkCell();
-                b.updateThreats(b.getCellAt(freeCell.i, freeCell.j));
+                if (value < eval) {
+                    eval = value;
+                    pvUpdate(ply, freeCell);
+                }
                 beta = Integer.min(eval, beta);
+                searched++;
                 if (alpha >= beta)
                     break;
             }
         }
+        if (stats != null) {
+            stats.interiorNodes++;
+            if (alpha >= beta) {
+                stats.betaCutoffs++;
+                if (searched == 1)
+                    stats.firstMoveCutoffs++;
+            }
+        }
+        return eval;
+    }
+
+    /**
+     * Searches the move just played at a node of alphaBeta. A reduced move is first
+     * searched <code>reduction</code> plies shallower with a null window on the bound
+     * of the player who moved: if it does not beat that bound it is not worth more
+     * and its value stands, otherwise it is searched again at full depth
+     * 
+     * @param max whether the move was played by this player, as in alphaBeta
+     * @param depth the depth of the node the move was played in
+     */
+    private int searchMove(Board b, boolean max, int alpha, int beta, int depth, int reduction, double initialTime) {
+        if (reduction > 0) {
+            if (stats != null)
+                stats.reductions++;
+            int value = max ? alphaBeta(b, false, alpha, alpha + 1, depth - 1 - reduction, initialTime)
+                    : alphaBeta(b, true, beta - 1, beta, depth - 1 - reduction, initialTime);
+            if (max ? value <= alpha : value >= beta)
+                return value;
+            if (stats != null)
+                stats.reSearches++;
+        }
+        return alphaBeta(b, !max, alpha, beta, depth - 1, initialTime);
+    }
+
+    /**
+     * Late-move reductions: at nodes with at least lmrDepth plies left, the quiet
+     * moves (the ones past MoveList.tactical, which neither win, block nor touch a
+     * threat) are searched lmrReduction plies shallower from the lmrMoves-th move
+     * on, one more from the lmrLateMoves-th on. Forced moves are never reduced
+     * 
+     * @param index the position of the move in moves
+     * @return the no. of plies to take off the search of the move
+     */
+    private int reduction(MoveList moves, int index, int depth) {
+        if (lmrReduction <= 0 || depth < lmrDepth || moves.forced || index < moves.tactical || index < lmrMoves)
+            return 0;
+        int r = index >= lmrLateMoves ? lmrReduction + 1 : lmrReduction;
+        return Integer.min(r, depth - 1);
+    }
+
+    /**
+     * Extends a leaf of alphaBeta while the position is not quiet: only the forced
+     * moves of Board.getForcedMoves() are searched, the immediate wins of the
+     * player to move or else the blocks of the opponent's wins, so a k-1 threat
+     * about to be converted is resolved instead of being evaluated as if it
+     * could wait. A quiet position, or one past <code>plies</code> forced
+     * moves, gets the static evaluation
+     * 
+     * @param plies how many forced moves can still be searched
+     * @return The value of the position, as in alphaBeta
+     */
+    private int quiescence(Board b, boolean max, int alpha, int beta, int plies, double initialTime) {
+        int ply = pvStart(b);
+        if (b.gameState != MNKGameState.OPEN || plies == 0 || outOfTime(initialTime))
+            return leafValue(b);
+        MoveList forced = b.getForcedMoves();
+        if (forced == null)
+            return leafValue(b);
+        int eval = max ? Integer.MIN_VALUE : Integer.MAX_VALUE;
+        for (MNKCell cell : forced.cells) {
+            b.markCell(cell.i, cell.j);
+            updateThreats(b, b.getCellAt(cell.i, cell.j));
+            nodes++;
+            if (stats != null)
+                stats.quiescenceNodes++;
+            int value = quiescence(b, !max, alpha, beta, plies - 1, initialTime);
+            b.unmarkCell();
+            if (max ? value > eval : value < eval) {
+                eval = value;
+                pvUpdate(ply, cell);
+            }
+            if (max)
+                alpha = Integer.max(eval, alpha);
+            else
+                beta = Integer.min(eval, beta);
+            if (alpha >= beta)
+                break;
+        }
         return eval;
     }
 
+    // Principal variation: a node empties the line of its ply on entry, and a move that
+    // becomes the best of the node is put in front of the line of the next ply
+
+    private int pvStart(Board b) {
+        if (pv == null)
+            return -1;
+        int ply = b.MC.size() - pvRoot;
+        if (ply >= pv.length)
+            return -1;
+        pvLength[ply] = ply;
+        return ply;
+    }
+
+    private void pvUpdate(int ply, MNKCell cell) {
+        if (ply < 0)
+            return;
+        pv[ply][ply] = cell;
+        pvLength[ply] = ply + 1;
+        if (ply + 1 < pv.length) {
+            System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+            pvLength[ply] = pvLength[ply + 1];
+        }
+    }
+
+    /**
+     * Searches one root move of the position on the board, keeping track of its
+     * principal variation. Its nodes add to nodes(), so the node budget bounds a
+     * whole analysis
+     * 
+     * @param move        the root move, a free cell
+     * @param depth       plies to search, counting the root move
+     * @param alpha       the score the move has to beat to be of interest: if it
+     *                    does not, the score of the line is only an upper bound
+     * @param initialTime the time when the analysis started
+     * @return the line, scored from the point of view of this player, or null if the
+     *         search ran out of time or nodes
+     */
+    public PVLine searchLine(MNKCell move, int depth, int alpha, double initialTime) {
+        int plies = depth + quiescenceDepth + 1;
+        pv = new MNKCell[plies][plies];
+        pvLength = new int[plies];
+        pvRoot = board.MC.size();
+        board.markCell(move.i, move.j);
+        board.updateThreats(board.getCellAt(move.i, move.j));
+        pvLength[1] = 1; // the root move may end the game: no search below it
+        int score = alphaBeta(board, player.num() == board.currentPlayer(), alpha, Integer.MAX_VALUE, depth - 1, initialTime);
+        board.unmarkCell();
+
+        MNKCell[] line = new MNKCell[pvLength[1]];
+        line[0] = move;
+        System.arraycopy(pv[1], 1, line, 1, line.length - 1);
+        pv = null;
+        if (outOfTime(initialTime))
+            return null;
+        return new PVLine(line, score, depth, score > alpha);
+    }
+
+    /**
+     * Multi-PV search of the position on the board: every root move is searched
+     * with searchLine(), against the score of the worst of the best lines found
+     * so far
+     * 
+     * @param depth       plies to search, counting the root moves
+     * @param lines       how many lines to return
+     * @param initialTime the time when the analysis started
+     * @return the best lines, best first, or null if the search ran out of time or
+     *         nodes
+     */
+    public List<PVLine> analyse(int depth, int lines, double initialTime) {
+        List<PVLine> best = new ArrayList<>();
+        for (MNKCell move : board.getOrderedMoves().cells) {
+            PVLine line = searchLine(move, depth, PVLine.bound(best, lines), initialTime);
+            if (line == null)
+                return null;
+            PVLine.keepBest(best, line, lines);
+        }
+        return best;
+    }
+
+    /**
+     * Marks on the board of the player the moves it does not have yet: our last
+     * move and the adversary's reply, or more when the game did not start from an
+     * empty board (e.g. an opening, or a position to analyse)
+     * 
+     * @param MC the moves of the game, first to last
+     */
+    public void loadPosition(MNKCell[] MC) {
+        for (int x = board.MC.size(); x < MC.length; x++) {
+            board.markCell(MC[x].i, MC[x].j);
+            board.updateThreats(board.getCellAt(MC[x].i, MC[x].j));
+        }
+    }
+
+    /**
+     * Puts a position on the board of the player, taking back only the moves that
+     * differ from the position already there, and makes the player the one to move.
+     * Positions of the same game are set with a few marks and unmarks each
+     *
+     * @param MC the moves of the position, first to last
+     * @throws IllegalArgumentException if a move is not legal, then the board holds
+     *                                  the moves before it
+     */
+    public void setPosition(MNKCell[] MC) throws IllegalArgumentException {
+        int common = 0;
+        for (MNKCell c : board.MC) {
+            if (common == MC.length || c.i != MC[common].i || c.j != MC[common].j)
+                break;
+            common++;
+        }
+        for (int x = board.MC.size(); x > common; x--)
+            board.unmarkCell();
+        try {
+            loadPosition(MC);
+        } catch (IndexOutOfBoundsException | IllegalStateException e) {
+            throw new IllegalArgumentException("Illegal move " + MC[board.MC.size()].i + "," + MC[board.MC.size()].j + ": " + e.getMessage());
+        }
+        player = new Player(board.currentPlayer());
+    }
+
+    /**
+     * Values the position on the board for the player to move, e.g. one put there by
+     * setPosition(): with evaluate() at depth 0 or when the game is over, otherwise
+     * with a search of exactly <code>depth</code> plies, counting the move. The value
+     * is then given by lastScore() and the nodes by nodes()
+     *
+     * @return the best move, null if there was no search
+     */
+    public MNKCell searchPosition(int depth) {
+        nodes = 0;
+        stats = null;
+        score = evaluate(board, player.state());
+        completedDepth = 0;
+        if (depth <= 0 || board.gameState() != MNKGameState.OPEN)
+            return null;
+        int fixed = fixedDepth;
+        fixedDepth = depth; // no clock
+        MNKCell best = searchDriver(depth - 1, System.currentTimeMillis(), new LinkedList<>(Arrays.asList(board.getOrderedMoves().cells)));
+        fixedDepth = fixed;
+        score = driverValue;
+        completedDepth = depth;
+        return best;
+    }
+
+    // The phases of a node: when statistics are on, a sample of their calls is timed
+
+    private void updateThreats(Board b, MNKCell pivot) {
+        if (stats != null && stats.sample(SearchStats.Phase.UPDATE_THREATS)) {
+            long start = System.nanoTime();
+            b.updateThreats(pivot);
+            stats.addPhaseTime(SearchStats.Phase.UPDATE_THREATS, System.nanoTime() - start);
+        } else
+            b.updateThreats(pivot);
+    }
+
+    private int leafValue(Board b) {
+        if (stats != null && stats.sample(SearchStats.Phase.EVALUATE)) {
+            long start = System.nanoTime();
+            int value = evaluate(b, player.state());
+            stats.addPhaseTime(SearchStats.Phase.EVALUATE, System.nanoTime() - start);
+            return value;
+        }
+        return evaluate(b, player.state());
+    }
+
+    private MoveList orderedMoves(Board b) {
+        if (stats != null && stats.sample(SearchStats.Phase.MOVE_GENERATION)) {
+            long start = System.nanoTime();
+            MoveList moves = b.getOrderedMoves();
+            stats.addPhaseTime(SearchStats.Phase.MOVE_GENERATION, System.nanoTime() - start);
+            return moves;
+        }
+        return b.getOrderedMoves();
+    }
+
 
     /**
      * Driver method to select the best cell \in FC
@@ -170,7 +614,7 @@ public class GW implements MNKPlayer {
     public MNKCell searchDriver(int goalDepth, double initialTime, LinkedList<MNKCell> interestingCells) {
         // optimal cell intitalization
         Integer optimalValue = Integer.MIN_VALUE;
-        MNKCell optimalCell = board.getFreeCells()[0];
+        MNKCell optimalCell = interestingCells.getFirst();
 
         // alpha-beta value intialization
         Integer alpha = Integer.MIN_VALUE, beta = Integer.MAX_VALUE;
@@ -179,10 +623,11 @@ public class GW implements MNKPlayer {
 
         // running alpha beta on all free cells and memorizing the optimal cell to be
         // marked
+        driverValue = optimalValue;
         for (MNKCell fc : interestingCells) {
-            if(!(((System.currentTimeMillis() - initialTime) / 1000.0) < timeout-insurance)) return optimalCell;
+            if(outOfTime(initialTime)) return optimalCell;
             board.markCell(fc.i, fc.j);
-            board.updateThreats(board.getCellAt(fc.i, fc.j));
+            updateThreats(board, board.getCellAt(fc.i, fc.j));
             Integer currentCellValue;
 
             if(firstSearch){
@@ -193,9 +638,9 @@ public class GW implements MNKPlayer {
             if (currentCellValue > optimalValue) {
                 optimalValue = currentCellValue;
                 optimalCell = fc;
+                driverValue = optimalValue;
             }
             board.unmarkCell();
-            board.updateThreats(board.getCellAt(fc.i, fc.j));
         }
         return optimalCell;
     }
@@ -203,33 +648,66 @@ public class GW implements MNKPlayer {
     /**
      * Handles the timeout restriction by performing deeper searches of the game tree at each iteration
      * It uses the previous best guess as the first node to search in the next iteration to increase pruning in the other branches
+     * In deterministic mode it searches up to the fixed depth, or until the node budget runs out
      * @param itDepthMax The upper boundary of the search
      * @return The deemed best move in the current state of the game
      */
     public MNKCell iterativeDeepening(int itDepthMax) {
 
         double initialTime = System.currentTimeMillis(); // in ms
+        long startNanos = System.nanoTime();
+        nodes = 0;
+        stats = statsEnabled ? new SearchStats() : null;
+        if (fixedDepth > 0) itDepthMax = fixedDepth - 1; // itDepth counts the plies below the root move
+        else if (nodeBudget > 0) itDepthMax = board.M * board.N - board.MC.size();
 
         int itDepth = 0;
-        MNKCell optimalCell = this.board.getFreeCells()[0];
-        LinkedList<MNKCell> interestingCells;
-        if(board.MC.size() > 1) interestingCells = new LinkedList<>(board.contour());
-        else interestingCells = new LinkedList<>(Arrays.asList(board.getFreeCells()));
+        completedDepth = 0; // in plies, counting the root move
+        MoveList moves = board.getOrderedMoves();
+        score = evaluate(board, player.state());
+        if (moves.forced && moves.size() == 1) {
+            finishStats(0, startNanos);
+            return moves.cells[0]; // a single win or a mandatory block needs no search
+        }
+        LinkedList<MNKCell> interestingCells = new LinkedList<>(Arrays.asList(moves.cells));
+        MNKCell optimalCell = interestingCells.getFirst();
 
-        while(( ((System.currentTimeMillis() - initialTime) / 1000.0) < timeout-insurance) && (itDepth <= itDepthMax)) { // until time limit is reached
+        while(!outOfTime(initialTime) && (itDepth <= itDepthMax)) { // until time limit is reached
             //optimalCell = depthLimitedSearch(this.board, itDepth, itDepthMax);
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
             optimalCell = searchDriver(itDepth, initialTime, interestingCells);
+            boolean completed = !outOfTime(initialTime);
+            if (completed) {
+                completedDepth = itDepth + 1;
+                score = driverValue;
+            }
+            if (event.shouldCommit()) {
+                event.depth = itDepth + 1;
+                event.nodes = nodes;
+                event.completed = completed;
+                event.cell = "[" + optimalCell.i + "," + optimalCell.j + "]";
+                event.commit();
+            }
             interestingCells.remove(optimalCell);
             interestingCells.addFirst(optimalCell);
             itDepth += 1;
-            //System.out.print(itDepth + ", ");
-            //System.out.println((System.currentTimeMillis() - initialTime)/1000.0);
         }
-        if(((System.currentTimeMillis() - initialTime) / 1000.0) > timeout-1) insurance+=2;
+        if(!deterministic() && ((System.currentTimeMillis() - initialTime) / 1000.0) > timeout-1) insurance+=2;
 
+        finishStats(completedDepth, startNanos);
         return optimalCell;
     }
 
+    private void finishStats(int completedDepth, long startNanos) {
+        if (stats == null)
+            return;
+        stats.searches = 1;
+        stats.completedDepth = completedDepth;
+        stats.nodes = nodes;
+        stats.nanos = System.nanoTime() - startNanos;
+    }
+
 
     /**
      * Our current best guess for how to win any game
@@ -238,22 +716,21 @@ public class GW implements MNKPlayer {
      * @return The cell that is more likely to lead to a win given the performed search
      */
     public MNKCell selectCell(MNKCell[] FC, MNKCell[] MC) {
-        // mark last played cell by the adversary
-        if(MC.length == 1){
-            MNKCell opponentCell = MC[MC.length-1];
-            board.markCell(opponentCell.i, opponentCell.j);
-            board.updateThreats(opponentCell);
-        }
-        else if (MC.length > 0){
-            MNKCell playerCell = MC[MC.length-2];
-            MNKCell opponentCell = MC[MC.length-1];
-            board.markCell(playerCell.i, playerCell.j);
-            board.markCell(opponentCell.i, opponentCell.j);
-            board.updateThreats(playerCell);
-            board.updateThreats(opponentCell);
-        }
-        
+        SelectCellEvent event = new SelectCellEvent();
+        event.begin();
+        loadPosition(MC);
+
         MNKCell optimalCell = iterativeDeepening(board.K);
+
+        if (event.shouldCommit()) {
+            event.player = playerName();
+            event.board = board.M + "," + board.N + "," + board.K;
+            event.depth = completedDepth;
+            event.nodes = nodes;
+            event.fill = (double) MC.length / (board.M * board.N);
+            event.cell = "[" + optimalCell.i + "," + optimalCell.j + "]";
+            event.commit();
+        }
         return optimalCell;
     }
 
@@ -0,0 +1,153 @@
+package mnkgame;
+
+import java.nio.ByteBuffer;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A finished game: board parameters, player names, result and the moves in order.
+ * <p>
+ * Binary format of a record (all integers are unsigned LEB128 varints):
+ * <pre>
+ * length        size in bytes of the rest of the record
+ * M N K
+ * result        ordinal of MNKPlayerTester.GameState
+ * name1 name2   length followed by the UTF-8 bytes
+ * moves         number of moves followed by the cell indexes i*N+j
+ * </pre>
+ * A file of records has no header, so records can be appended to it and files can be
+ * concatenated. The length prefix lets a reader skip a record without decoding it
+ * </p>
+ */
+public class GameRecord {
+    public final int M;
+    public final int N;
+    public final int K;
+    public final String player1;
+    public final String player2;
+    public final MNKPlayerTester.GameState result;
+    public final int[] moves; // cell indexes i*N+j
+
+    public GameRecord(int M, int N, int K, String player1, String player2, MNKPlayerTester.GameState result, int[] moves) {
+        this.M = M;
+        this.N = N;
+        this.K = K;
+        this.player1 = player1;
+        this.player2 = player2;
+        this.result = result;
+        this.moves = moves;
+    }
+
+    /**
+     * @param B the board at the end of the game
+     */
+    public GameRecord(MNKBoard B, String player1, String player2, MNKPlayerTester.GameState result) {
+        this(B.M, B.N, B.K, player1, player2, result, new int[B.getMarkedCells().length]);
+        MNKCell[] MC = B.getMarkedCells();
+        for (int x = 0; x < MC.length; x++)
+            moves[x] = MC[x].i * N + MC[x].j;
+    }
+
+    /**
+     * @return the x-th move as a cell
+     */
+    public MNKCell move(int x) {
+        return new MNKCell(moves[x] / N, moves[x] % N);
+    }
+
+    /**
+     * Writes the record, length prefix included, at the position of the buffer
+     * 
+     * @throws java.nio.BufferOverflowException if the buffer is too small, see size()
+     */
+    public void encode(ByteBuffer buf) {
+        byte[] name1 = player1.getBytes(StandardCharsets.UTF_8), name2 = player2.getBytes(StandardCharsets.UTF_8);
+        putVarint(buf, bodySize(name1, name2));
+        putVarint(buf, M);
+        putVarint(buf, N);
+        putVarint(buf, K);
+        putVarint(buf, result.ordinal());
+        putVarint(buf, name1.length);
+        buf.put(name1);
+        putVarint(buf, name2.length);
+        buf.put(name2);
+        putVarint(buf, moves.length);
+        for (int m : moves)
+            putVarint(buf, m);
+    }
+
+    /**
+     * @return the number of bytes written by encode()
+     */
+    public int size() {
+        int body = bodySize(player1.getBytes(StandardCharsets.UTF_8), player2.getBytes(StandardCharsets.UTF_8));
+        return varintSize(body) + body;
+    }
+
+    /**
+     * Reads a record, length prefix included, from the position of the buffer
+     * 
+     * @throws BufferUnderflowException if the buffer ends before the record does
+     */
+    public static GameRecord decode(ByteBuffer buf) throws BufferUnderflowException {
+        getVarint(buf); // length
+        int M = getVarint(buf), N = getVarint(buf), K = getVarint(buf);
+        MNKPlayerTester.GameState result = MNKPlayerTester.GameState.values()[getVarint(buf)];
+        byte[] name1 = new byte[getVarint(buf)];
+        buf.get(name1);
+        byte[] name2 = new byte[getVarint(buf)];
+        buf.get(name2);
+        int[] moves = new int[getVarint(buf)];
+        for (int x = 0; x < moves.length; x++)
+            moves[x] = getVarint(buf);
+        return new GameRecord(M, N, K, new String(name1, StandardCharsets.UTF_8), new String(name2, StandardCharsets.UTF_8), result, moves);
+    }
+
+    private int bodySize(byte[] name1, byte[] name2) {
+        int size = varintSize(M) + varintSize(N) + varintSize(K) + varintSize(result.ordinal())
+                + varintSize(name1.length) + name1.length + varintSize(name2.length) + name2.length
+                + varintSize(moves.length);
+        for (int m : moves)
+            size += varintSize(m);
+        return size;
+    }
+
+    /* VARINTS (BELOW) */
+
+    static void putVarint(ByteBuffer buf, int v) {
+        while ((v & ~0x7F) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    static int getVarint(ByteBuffer buf) throws BufferUnderflowException {
+        int v = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buf.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return v;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    static int varintSize(int v) {
+        int size = 1;
+        while ((v & ~0x7F) != 0) {
+            size++;
+            v >>>= 7;
+        }
+        return size;
+    }
+
+    /* VARINTS (ABOVE) */
+
+    public String toString() {
+        StringBuilder sb = new StringBuilder("(" + M + ", " + N + ", " + K + ") " + player1 + " vs " + player2 + ": " + result + "\n");
+        for (int x = 0; x < moves.length; x++)
+            sb.append("[" + moves[x] / N + "," + moves[x] % N + "] ");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package mnkgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Streams the GameRecords of a file, in order, through a memory mapped window that slides
+ * over the file: only the records being decoded are in memory, whatever the size of the file.
+ * <p>Usage: GameRecordReader &lt;file&gt; [-v] prints how many games the file holds and their
+ * results (every game with -v)</p>
+ */
+public class GameRecordReader implements Iterator<GameRecord>, Iterable<GameRecord>, Closeable {
+    private static final long WINDOW = 1L << 28; // 256 MB
+
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    private long windowStart; // file position of the window
+
+    public GameRecordReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        size = channel.size();
+        map(0);
+    }
+
+    // maps the window starting at the given file position
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW, size - start));
+    }
+
+    public boolean hasNext() {
+        return windowStart + window.position() < size;
+    }
+
+    public GameRecord next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        int start = window.position();
+        try {
+            return GameRecord.decode(window);
+        } catch (BufferUnderflowException e) { // the record crosses the end of the window
+            try {
+                map(windowStart + start);
+            } catch (IOException io) {
+                throw new IllegalStateException(io);
+            }
+            try {
+                return GameRecord.decode(window);
+            } catch (BufferUnderflowException truncated) {
+                throw new IllegalStateException("Truncated record at byte " + (windowStart + start));
+            }
+        }
+    }
+
+    public Iterator<GameRecord> iterator() {
+        return this;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: GameRecordReader <file> [-v]");
+            System.exit(0);
+        }
+        boolean verbose = args.length > 1 && args[1].equals("-v");
+        long games = 0, moves = 0, start = System.nanoTime();
+        int[] results = new int[MNKPlayerTester.GameState.values().length];
+        try (GameRecordReader reader = new GameRecordReader(Paths.get(args[0]))) {
+            for (GameRecord r : reader) {
+                games++;
+                moves += r.moves.length;
+                results[r.result.ordinal()]++;
+                if (verbose)
+                    System.out.println(r);
+            }
+        }
+        double secs = (System.nanoTime() - start) / 1e9;
+        System.out.println(games + " games, " + moves + " moves, read in " + String.format("%.2f", secs) + " s");
+        for (MNKPlayerTester.GameState s : MNKPlayerTester.GameState.values())
+            if (results[s.ordinal()] > 0)
+                System.out.println(s + "\t" + results[s.ordinal()]);
+    }
+}
@@ -0,0 +1,47 @@
+package mnkgame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends GameRecords to a file through a buffered channel.
+ * Records are only guaranteed to be on disk after flush() or close()
+ */
+public class GameRecordWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Opens the file for appending, creating it if it does not exist
+     */
+    public GameRecordWriter(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public synchronized void write(GameRecord record) throws IOException {
+        int size = record.size();
+        if (size > buffer.remaining())
+            flush();
+        if (size > buffer.capacity())
+            buffer = ByteBuffer.allocateDirect(Integer.highestOneBit(size) << 1); // a huge board
+        record.encode(buffer);
+    }
+
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    public synchronized void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
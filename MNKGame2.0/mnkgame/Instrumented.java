@@ -0,0 +1,16 @@
+package mnkgame;
+
+/**
+ * An MNKPlayer that can report statistics about its last search
+ */
+public interface Instrumented {
+    /**
+     * Turns statistics collection on or off, it is off by default
+     */
+    public void setStatsEnabled(boolean enabled);
+
+    /**
+     * @return the statistics of the last selectCell, or null if collection is off
+     */
+    public SearchStats lastSearchStats();
+}
@@ -0,0 +1,131 @@
+package mnkgame;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from non negative int keys to int values, without
+ * boxing. A value of 0 means the key is absent: get() returns 0 for missing keys
+ * and put(key, 0) removes the key, which suits counters and sparse arrays
+ */
+public class IntIntMap {
+    private int[] keys; // key + 1, 0 if the slot is empty
+    private int[] values;
+    private int mask;
+    private int size;
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    public IntIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Copy of the map, made with bulk copies of its arrays
+     */
+    public IntIntMap(IntIntMap map) {
+        keys = map.keys.clone();
+        values = map.values.clone();
+        mask = map.mask;
+        size = map.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int key) {
+        for (int slot = slot(key);; slot = (slot + 1) & mask) {
+            if (keys[slot] == 0)
+                return 0;
+            if (keys[slot] == key + 1)
+                return values[slot];
+        }
+    }
+
+    /**
+     * @return the previous value of the key, 0 if it was absent
+     */
+    public int put(int key, int value) {
+        if (value == 0)
+            return remove(key);
+        int slot = slot(key);
+        for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key + 1) {
+                int old = values[slot];
+                values[slot] = value;
+                return old;
+            }
+        }
+        keys[slot] = key + 1;
+        values[slot] = value;
+        if (++size * 2 > keys.length)
+            resize(keys.length * 2);
+        return 0;
+    }
+
+    /**
+     * Adds delta to the value of the key, removing it if it drops to 0
+     * 
+     * @return the new value
+     */
+    public int add(int key, int delta) {
+        int value = get(key) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * @return the value of the removed key, 0 if it was absent
+     */
+    public int remove(int key) {
+        int slot = slot(key);
+        for (; keys[slot] != key + 1; slot = (slot + 1) & mask) {
+            if (keys[slot] == 0)
+                return 0;
+        }
+        int old = values[slot];
+        // backward shift: moves back the entries that would not be found past the hole
+        for (int next = (slot + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = slot(keys[next] - 1);
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        keys[slot] = 0;
+        values[slot] = 0;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        if (size == 0)
+            return;
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys, oldValues = values;
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+        for (int x = 0; x < oldKeys.length; x++) {
+            if (oldKeys[x] != 0)
+                put(oldKeys[x] - 1, oldValues[x]);
+        }
+    }
+}
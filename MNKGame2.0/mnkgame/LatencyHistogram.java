@@ -0,0 +1,93 @@
+package mnkgame;
+
+/**
+ * Log-linear histogram of durations, in the manner of HdrHistogram.
+ * <p>
+ * Durations are kept in microseconds. Below 2^SUB_BITS microseconds every value has its own
+ * bucket, above that every power of 2 is split in 2^(SUB_BITS-1) buckets, so that any recorded
+ * value is known within 1/2^(SUB_BITS-1) (about 3%) of its actual value, up to 2^40 us
+ * (about 12 days) in a fixed array of about a thousand counters
+ * </p>
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int HALF = SUB / 2;
+    private static final int MAX_BITS = 40;
+
+    private final long[] counts = new long[SUB + (MAX_BITS - SUB_BITS + 1) * HALF];
+    private long count;
+    private long total; // in us
+    private long max; // in us
+
+    public void record(long nanos) {
+        long us = Math.min(Math.max(nanos / 1000, 0), (1L << MAX_BITS) - 1);
+        counts[index(us)]++;
+        count++;
+        total += us;
+        max = Math.max(max, us);
+    }
+
+    public void add(LatencyHistogram h) {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += h.counts[i];
+        count += h.count;
+        total += h.total;
+        max = Math.max(max, h.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @return the mean duration in nanoseconds
+     */
+    public double mean() {
+        return count == 0 ? 0 : total * 1000.0 / count;
+    }
+
+    /**
+     * @return the largest recorded duration, in nanoseconds
+     */
+    public long max() {
+        return max * 1000;
+    }
+
+    /**
+     * @param p percentile, between 0 and 100
+     * @return the duration, in nanoseconds, that p% of the recorded durations do not exceed
+     */
+    public long percentile(double p) {
+        if (count == 0)
+            return 0;
+        long target = Math.max(1, (long) Math.ceil(p / 100 * count)), seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target)
+                return Math.min(highestValue(i), max) * 1000;
+        }
+        return max * 1000;
+    }
+
+    private static int index(long us) {
+        if (us < SUB)
+            return (int) us;
+        int shift = (63 - Long.numberOfLeadingZeros(us)) - (SUB_BITS - 1);
+        return SUB + (shift - 1) * HALF + (int) ((us >>> shift) - HALF);
+    }
+
+    // the largest value that falls in bucket i
+    private static long highestValue(int i) {
+        if (i < SUB)
+            return i;
+        int shift = (i - SUB) / HALF + 1;
+        long sub = (i - SUB) % HALF + HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public String toString() {
+        return String.format("p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms", percentile(50) / 1e6,
+                percentile(90) / 1e6, percentile(99) / 1e6, max() / 1e6);
+    }
+}
@@ -0,0 +1,240 @@
+package mnkgame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Analyses a position with GW and prints its best moves, with their scores and principal
+ * variations, after every depth of an iterative deepening:
+ * <pre>
+ * depth 3  nodes 12345  nps 123456  time 0.1 s
+ *   1. 3,3  score 250  pv 3,3 2,2 4,4
+ *   2. ...
+ * </pre>
+ * Scores are from the point of view of the player to move. The position is a list of
+ * moves i,j separated by spaces, first to last, as in the output of SelfPlay (a score
+ * after the move is ignored).
+ * <p>
+ * The root moves of each depth are shared among JOBS threads, each with its own GW and
+ * board, and every move is searched against the worst of the best lines found so far.
+ * The analysis stops at the time or node limit, or at the maximum depth: the lines of
+ * an interrupted depth are not printed.
+ * </p>
+ * <p>
+ * Usage: MNKAnalyser [OPTIONS] &lt;M&gt; &lt;N&gt; &lt;K&gt; [&lt;position&gt;]<br/>
+ * OPTIONS:<br>
+ * &nbsp;&nbsp;-l &lt;lines&gt; Number of best moves</br>
+ * &nbsp;&nbsp;-t &lt;seconds&gt; Time limit</br>
+ * &nbsp;&nbsp;-n &lt;nodes&gt; Node limit, instead of the time limit</br>
+ * &nbsp;&nbsp;-d &lt;depth&gt; Maximum depth</br>
+ * &nbsp;&nbsp;-j &lt;jobs&gt; Number of threads</br>
+ * </p>
+ */
+public class MNKAnalyser {
+	private static int    LINES  = 3;
+	private static int    TIME   = 10;
+	private static long   NODES  = 0;
+	private static int    DEPTH  = 0;
+	private static int    JOBS   = Runtime.getRuntime().availableProcessors();
+
+	private static int    M;
+	private static int    N;
+	private static int    K;
+	private static MNKCell[] MC;
+
+	private MNKAnalyser() {
+	}
+
+	/**
+	 * @return the moves of the position, checked by playing them on a board
+	 */
+	private static MNKCell[] parsePosition(String position) {
+		MNKBoard B = new MNKBoard(M,N,K);
+		for(String move : position.trim().split("\\s+")) {
+			if(move.isEmpty()) continue;
+			String[] f = move.split(",");
+			if(f.length < 2)
+				throw new IllegalArgumentException("Illegal move: " + move);
+			try {
+				B.markCell(Integer.parseInt(f[0]),Integer.parseInt(f[1]));
+			} catch(NumberFormatException e) {
+				throw new IllegalArgumentException("Illegal move: " + move);
+			} catch(IndexOutOfBoundsException | IllegalStateException e) {
+				throw new IllegalArgumentException("Illegal move " + move + ": " + e.getMessage());
+			}
+		}
+		return B.getMarkedCells();
+	}
+
+	private static GW newAnalyst(long deadline, long nodes, AtomicLong spent) {
+		GW gw = new GW();
+		gw.initPlayer(M,N,K,MC.length % 2 == 0,Integer.MAX_VALUE / 1000);
+		gw.loadPosition(MC);
+		gw.setDeadline(deadline);
+		gw.setNodeBudget(nodes);
+		gw.shareNodeBudget(spent);
+		return gw;
+	}
+
+	private static long parseLong(String args[], int i) throws IllegalArgumentException {
+		if(args.length < i+2)
+			throw new IllegalArgumentException("Expected parameter after " + args[i]);
+		try {
+			long n = Long.parseLong(args[i+1]);
+			if(n < 0) throw new IllegalArgumentException("Argument " + args[i] + " must not be negative");
+			return n;
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Illegal integer format for " + args[i] + " argument: " + args[i+1]);
+		}
+	}
+
+	private static void parseArgs(String args[]) {
+		List<String> L = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			switch(args[i].charAt(0)) {
+				case '-':
+					char c = (args[i].length() != 2 ? 'x' : args[i].charAt(1));
+					switch(c) {
+						case 'l': LINES = (int) Math.max(1, parseLong(args, i++)); break;
+						case 't': TIME  = (int) Math.max(1, parseLong(args, i++)); break;
+						case 'n': NODES = parseLong(args, i++); break;
+						case 'd': DEPTH = (int) parseLong(args, i++); break;
+						case 'j': JOBS  = (int) Math.max(1, parseLong(args, i++)); break;
+						default:
+							throw new IllegalArgumentException("Illegal argument:  " + args[i]);
+					}
+					break;
+				default:
+					L.add(args[i]);
+			}
+		}
+
+		if(L.size() < 3 || L.size() > 4)
+			throw new IllegalArgumentException("Expected arguments: <M> <N> <K> [<position>]");
+		try {
+			M = Integer.parseInt(L.get(0));
+			N = Integer.parseInt(L.get(1));
+			K = Integer.parseInt(L.get(2));
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Illegal integer format for M, N, K arguments");
+		}
+		if(M <= 0 || N <= 0 || K <= 0)
+			throw new IllegalArgumentException("Arguments  M, N, K must be larger than 0");
+		MC = parsePosition(L.size() > 3 ? L.get(3) : "");
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: MNKAnalyser [OPTIONS] <M> <N> <K> [<position>]");
+		System.err.println("  <position>   Moves i,j separated by spaces, e.g. \"3,3 2,2 3,4\". Default: empty board");
+		System.err.println("OPTIONS:");
+		System.err.println("  -l <lines>   Number of best moves. Default: " + LINES);
+		System.err.println("  -t <seconds> Time limit. Default: " + TIME);
+		System.err.println("  -n <nodes>   Node limit, instead of the time limit. Default: none");
+		System.err.println("  -d <depth>   Maximum depth. Default: the number of free cells");
+		System.err.println("  -j <jobs>    Number of threads. Default: no. of processors");
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		if(args.length == 0) {
+			printUsage();
+			System.exit(0);
+		}
+
+		try {
+			parseArgs(args);
+		}
+		catch(Exception e) {
+			System.err.println(e);
+			System.exit(1);
+		}
+
+		MNKBoard B = new MNKBoard(M,N,K);
+		for(MNKCell c : MC) B.markCell(c.i,c.j);
+		if(B.gameState() != MNKGameState.OPEN) {
+			System.out.println("The game is over: " + B.gameState());
+			return;
+		}
+
+		final long start = System.currentTimeMillis();
+		final long deadline = NODES > 0 ? 0 : start + TIME * 1000L;
+		// the node limit is shared: a thread that draws the costly moves does not run out alone
+		final AtomicLong spent = new AtomicLong();
+		final GW[] analyst = new GW[JOBS];
+		for(int t = 0; t < JOBS; t++)
+			analyst[t] = newAnalyst(deadline, NODES, spent);
+
+		int maxDepth = DEPTH > 0 ? Math.min(DEPTH, M*N - MC.length) : M*N - MC.length;
+		List<MNKCell> roots = new ArrayList<MNKCell>();
+		Collections.addAll(roots, rootMoves());
+
+		ExecutorService pool = Executors.newFixedThreadPool(JOBS);
+		for(int depth = 1; depth <= maxDepth; depth++) {
+			final int d = depth;
+			final List<MNKCell> moves = roots;
+			final List<PVLine> best = new ArrayList<PVLine>();   // guarded by itself
+			final List<PVLine> searched = Collections.synchronizedList(new ArrayList<PVLine>());
+			final AtomicInteger next = new AtomicInteger();
+
+			List<Future<Boolean>> done = new ArrayList<Future<Boolean>>();
+			for(int t = 0; t < JOBS; t++) {
+				final GW gw = analyst[t];
+				done.add(pool.submit(() -> {
+					for(int x = next.getAndIncrement(); x < moves.size(); x = next.getAndIncrement()) {
+						int bound;
+						synchronized(best) { bound = PVLine.bound(best, LINES); }
+						PVLine line = gw.searchLine(moves.get(x), d, bound, start);
+						if(line == null) return false; // out of time or nodes
+						searched.add(line);
+						synchronized(best) { PVLine.keepBest(best, line, LINES); }
+					}
+					return true;
+				}));
+			}
+			boolean completed = true;
+			for(Future<Boolean> f : done) {
+				try {
+					completed &= f.get();
+				} catch(ExecutionException e) {
+					System.err.println("Error: " + e.getCause());
+					System.exit(1);
+				}
+			}
+			if(!completed) break;
+
+			long nodes = 0;
+			for(GW gw : analyst) nodes += gw.nodes();
+			double secs = Math.max(1, System.currentTimeMillis() - start) / 1000.0;
+			StringBuilder sb = new StringBuilder(String.format("depth %d  nodes %d  nps %.0f  time %.1f s%n", d, nodes, nodes / secs, secs));
+			for(int x = 0; x < best.size(); x++)
+				sb.append(String.format("  %d. %d,%d  score %d  pv %s%n", x + 1, best.get(x).move().i, best.get(x).move().j, best.get(x).score, best.get(x)));
+			System.out.print(sb);
+			System.out.flush();
+
+			// next depth: the best lines first, then the other moves by score
+			searched.sort((a, b) -> Integer.compare(b.score, a.score));
+			List<MNKCell> order = new ArrayList<MNKCell>();
+			for(PVLine line : best) order.add(line.move());
+			for(PVLine line : searched) if(!best.contains(line)) order.add(line.move());
+			roots = order;
+		}
+		pool.shutdown();
+	}
+
+	// the moves GW would search at the root of the position
+	private static MNKCell[] rootMoves() {
+		Board B = new Board(M,N,K);
+		for(MNKCell c : MC) {
+			B.markCell(c.i,c.j);
+			B.updateThreats(B.getCellAt(c.i,c.j));
+		}
+		return B.getOrderedMoves().cells;
+	}
+}
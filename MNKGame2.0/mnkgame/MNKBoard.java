@@ -34,6 +34,11 @@ import java.util.HashSet;
  * list of moves and allows undoes.
  * 
  * </p> 
+ * <p>
+ * A sparse board keeps only the marked cells, in a hash map, instead of the MxN matrix and the
+ * set of free cells: memory and the cost of a move grow with the number of moves, not with the
+ * board area. Only getFreeCells() still scans the whole board. Meant for boards of 100x100 and larger.
+ * </p>
  */
 public class MNKBoard {
 	/**
@@ -49,9 +54,15 @@ public class MNKBoard {
    */
 	public final int K;
 
-	protected final MNKCellState[][]    B;
+	protected final MNKCellState[][]    B;   // null if sparse
 	protected final LinkedList<MNKCell> MC;  // Marked Cells
-	protected final HashSet<MNKCell>    FC;  // Free Cells
+	protected final HashSet<MNKCell>    FC;  // Free Cells, null if sparse
+	protected final IntIntMap           S;   // Stones of a sparse board: i*N+j -> 1 (P1), 2 (P2)
+
+	/**
+   * Whether the board is sparse
+   */
+	public final boolean sparse;
 
 	private final MNKCellState[] Player = {MNKCellState.P1,MNKCellState.P2};
 
@@ -69,6 +80,20 @@ public class MNKBoard {
    * @throws IllegalArgumentException If M,N,K are smaller than  1
    */
 	public MNKBoard(int M, int N, int K) throws IllegalArgumentException {
+		this(M,N,K,false);
+	}
+
+	/**
+   * Create a board of size MxN, dense or sparse, and initialize the game parameters
+   * 
+   * @param M Board rows
+	 * @param N Board columns
+	 * @param K Number of symbols to be aligned (horizontally, vertically, diagonally) for a win
+	 * @param sparse Whether to keep only the marked cells
+	 *
+   * @throws IllegalArgumentException If M,N,K are smaller than  1
+   */
+	public MNKBoard(int M, int N, int K, boolean sparse) throws IllegalArgumentException {
 		if (M <= 0) throw new IllegalArgumentException("M cannot be smaller than 1");
 		if (N <= 0) throw new IllegalArgumentException("N cannot be smaller than 1");
 		if (K <= 0) throw new IllegalArgumentException("K cannot be smaller than 1");
@@ -76,15 +101,55 @@ public class MNKBoard {
 		this.M  = M;
 		this.N  = N;
 		this.K  = K;
+		this.sparse = sparse;
 
-		B  = new MNKCellState[M][N];
-		// Initial capacity large enough to assure load factor < 0.75
-		FC = new HashSet<MNKCell>((int) Math.ceil((M*N) / 0.75)); 
+		if(sparse) {
+			B  = null;
+			FC = null;
+			S  = new IntIntMap();
+		} else {
+			B  = new MNKCellState[M][N];
+			// Initial capacity large enough to assure load factor < 0.75
+			FC = new HashSet<MNKCell>((int) Math.ceil((M*N) / 0.75)); 
+			S  = null;
+		}
 		MC = new LinkedList<MNKCell>();
 
 		reset();
 	}
 
+	/**
+   * Create a copy of a board, with the same moves and its own state.
+   * The cell matrix is copied a row at a time and the free cells set is cloned,
+   * nothing is replayed
+   *
+   * @param board The board to copy
+   */
+	public MNKBoard(MNKBoard board) {
+		this.M  = board.M;
+		this.N  = board.N;
+		this.K  = board.K;
+		this.sparse = board.sparse;
+
+		if(sparse) {
+			B  = null;
+			FC = null;
+			S  = new IntIntMap(board.S);
+		} else {
+			B  = new MNKCellState[M][N];
+			for(int i = 0; i < M; i++)
+				System.arraycopy(board.B[i],0,B[i],0,N);
+			@SuppressWarnings("unchecked")
+			HashSet<MNKCell> free = (HashSet<MNKCell>) board.FC.clone();
+			FC = free;
+			S  = null;
+		}
+		MC = new LinkedList<MNKCell>(board.MC); // cells are immutable
+
+		currentPlayer = board.currentPlayer;
+		gameState     = board.gameState;
+	}
+
 	/**
  	 * Resets the MNKBoard
 	 */
@@ -109,7 +174,16 @@ public class MNKBoard {
 		if(i < 0 || i >= M || j < 0 || j >= N)
 			throw new IndexOutOfBoundsException("Indexes " + i + "," + j + " are out of matrix bounds");
 		else
-			return B[i][j];
+			return stateAt(i,j);
+	}
+
+	/**
+	 * State of cell <code>i,j</code> without bounds check
+	 */
+	protected final MNKCellState stateAt(int i, int j) {
+		if(B != null) return B[i][j];
+		int s = S.get(i*N+j);
+		return s == 0 ? MNKCellState.FREE : (s == 1 ? MNKCellState.P1 : MNKCellState.P2);
 	}
 
 	/**
@@ -146,22 +220,25 @@ public class MNKBoard {
 			throw new IllegalStateException("Game ended!");
 		} else if(i < 0 || i >= M || j < 0 || j >= N) {
 			throw new IndexOutOfBoundsException("Indexes " + i +"," + j + " out of matrix bounds");
-		} else if(B[i][j] != MNKCellState.FREE) {
+		} else if(stateAt(i,j) != MNKCellState.FREE) {
 			throw new IllegalStateException("Cell " + i +"," + j + " is not free");
 		} else {
-			MNKCell oldc = new MNKCell(i,j,B[i][j]);
+			MNKCell oldc = new MNKCell(i,j,MNKCellState.FREE);
 			MNKCell newc = new MNKCell(i,j,Player[currentPlayer]);
 
-			B[i][j] = Player[currentPlayer];
-
-			FC.remove(oldc);
+			if(sparse) {
+				S.put(i*N+j,currentPlayer + 1);
+			} else {
+				B[i][j] = Player[currentPlayer];
+				FC.remove(oldc);
+			}
 			MC.add(newc);
 			
 			currentPlayer = (currentPlayer + 1) % 2;
 
 			if(isWinningCell(i,j))
-				gameState =  B[i][j] == MNKCellState.P1 ? MNKGameState.WINP1 : MNKGameState.WINP2;
-			else if(FC.isEmpty())
+				gameState =  newc.state == MNKCellState.P1 ? MNKGameState.WINP1 : MNKGameState.WINP2;
+			else if(MC.size() == M*N)
 				gameState = MNKGameState.DRAW;
 			
 			return gameState;
@@ -180,9 +257,12 @@ public class MNKBoard {
 			MNKCell oldc = MC.removeLast();
 			MNKCell newc = new MNKCell(oldc.i,oldc.j,MNKCellState.FREE);
 
-			B[oldc.i][oldc.j] = MNKCellState.FREE;
-			
-			FC.add(newc);
+			if(sparse) {
+				S.remove(oldc.i*N+oldc.j);
+			} else {
+				B[oldc.i][oldc.j] = MNKCellState.FREE;
+				FC.add(newc);
+			}
 			currentPlayer = (currentPlayer + 1) % 2;
 			gameState     = MNKGameState.OPEN;
 		}
@@ -201,14 +281,27 @@ public class MNKBoard {
 	/**
 	 * Returns the free cells list in array format.
 	 * <p>There is not a predefined order for the free cells in the array</p>
+	 * <p>A sparse board builds it by scanning all the cells</p>
 	 * @return List of free cells
 	 */
 	public MNKCell[] getFreeCells() {
-		return FC.toArray(new MNKCell[FC.size()]);
+		if(!sparse)
+			return FC.toArray(new MNKCell[FC.size()]);
+
+		MNKCell[] free = new MNKCell[M*N - MC.size()];
+		int n = 0;
+		for(int i = 0; i < M; i++)
+			for(int j = 0; j < N; j++)
+				if(S.get(i*N+j) == 0) free[n++] = new MNKCell(i,j);
+		return free;
 	}
 
 	// Sets to free all board cells
 	private void initBoard() {
+		if(sparse) {
+			S.clear();
+			return;
+		}
 		for(int i = 0; i < M; i++)
 			for(int j = 0; j < N; j++)
 				B[i][j] = MNKCellState.FREE;
@@ -216,6 +309,7 @@ public class MNKBoard {
 
 	// Rebuilds the free cells set 
 	private void initFreeCellList() {
+		if(sparse) return; // the free cells are implicit
 		this.FC.clear();
 		for(int i = 0; i < M; i++)
 			for(int j = 0; j < N; j++)
@@ -229,7 +323,7 @@ public class MNKBoard {
 
 	// Check winning state from cell i, j
 	private boolean isWinningCell(int i, int j) {
-		MNKCellState s = B[i][j];
+		MNKCellState s = stateAt(i,j);
 		int n;
 
 		// Useless pedantic check
@@ -237,27 +331,27 @@ public class MNKBoard {
 
 		// Horizontal check
 		n = 1;
-		for(int k = 1; j-k >= 0 && B[i][j-k] == s; k++) n++; // backward check
-		for(int k = 1; j+k <  N && B[i][j+k] == s; k++) n++; // forward check   
+		for(int k = 1; j-k >= 0 && stateAt(i,j-k) == s; k++) n++; // backward check
+		for(int k = 1; j+k <  N && stateAt(i,j+k) == s; k++) n++; // forward check   
 		if(n >= K) return true;
 
 		// Vertical check
 		n = 1;
-		for(int k = 1; i-k >= 0 && B[i-k][j] == s; k++) n++; // backward check
-		for(int k = 1; i+k <  M && B[i+k][j] == s; k++) n++; // forward check
+		for(int k = 1; i-k >= 0 && stateAt(i-k,j) == s; k++) n++; // backward check
+		for(int k = 1; i+k <  M && stateAt(i+k,j) == s; k++) n++; // forward check
 		if(n >= K) return true;
 		
 
 		// Diagonal check
 		n = 1;
-		for(int k = 1; i-k >= 0 && j-k >= 0 && B[i-k][j-k] == s; k++) n++; // backward check
-		for(int k = 1; i+k <  M && j+k <  N && B[i+k][j+k] == s; k++) n++; // forward check
+		for(int k = 1; i-k >= 0 && j-k >= 0 && stateAt(i-k,j-k) == s; k++) n++; // backward check
+		for(int k = 1; i+k <  M && j+k <  N && stateAt(i+k,j+k) == s; k++) n++; // forward check
 		if(n >= K) return true;
 
 		// Anti-diagonal check
 		n = 1;
-		for(int k = 1; i-k >= 0 && j+k < N  && B[i-k][j+k] == s; k++) n++; // backward check
-		for(int k = 1; i+k <  M && j-k >= 0 && B[i+k][j-k] == s; k++) n++; // backward check
+		for(int k = 1; i-k >= 0 && j+k < N  && stateAt(i-k,j+k) == s; k++) n++; // backward check
+		for(int k = 1; i+k <  M && j-k >= 0 && stateAt(i+k,j-k) == s; k++) n++; // backward check
 		if(n >= K) return true;
 
 		return false;
@@ -0,0 +1,181 @@
+package mnkgame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Long-lived engine: plays any number of games with one MNKPlayer class, in a single JVM,
+ * driven by text commands on stdin. The protocol follows the Gomocup (Piskvork) one, with
+ * cells written <code>x,y</code>: x is the column (j) and y the row (i), both from 0.
+ * <pre>
+ * INFO timeout_turn &lt;ms&gt;   time per move of the next games (no reply)
+ * INFO k &lt;K&gt;               symbols to align in the next games, 5 by default (no reply)
+ * START &lt;size&gt;             new size x size game                     -&gt; OK
+ * RECTSTART &lt;w&gt;,&lt;h&gt;        new game with w columns and h rows       -&gt; OK
+ * RESTART                  new game on the same board               -&gt; OK
+ * BEGIN                    the engine moves first                    -&gt; x,y
+ * TURN x,y                 the opponent's move                       -&gt; x,y
+ * BOARD                    a position, one x,y,who per line          -&gt; x,y
+ *   (who: 1 engine, 2 opponent), then DONE; the engine moves next
+ * ABOUT                    -&gt; name="...", version="..."
+ * END                      quits
+ * </pre>
+ * Errors are answered with a line starting with ERROR, unknown commands with UNKNOWN.
+ * The player is created when the engine learns whether it moves first (BEGIN, TURN or
+ * BOARD), so the JIT warm-up and the static tables of the player are paid once per
+ * process instead of once per game. Anything the player prints goes to stderr.
+ * <p>
+ * Usage: MNKEngineServer [&lt;MNKPlayer class name&gt;]
+ * </p>
+ */
+public class MNKEngineServer {
+	private final String    playerClass;
+	private final PrintStream out;
+
+	private int         M = 15, N = 15, K = 5;
+	private int         timeout = 10;       // seconds per move
+	private MNKBoard    B;
+	private MNKPlayer   player;             // null until the engine knows its side
+
+	MNKEngineServer(String playerClass, PrintStream out) {
+		this.playerClass = playerClass;
+		this.out         = out;
+	}
+
+	private void newGame() {
+		B      = new MNKBoard(M,N,K);
+		player = null;
+	}
+
+	private void startPlayer(boolean first) {
+		player = MNKPlayerTester.newPlayer(playerClass);
+		player.initPlayer(M,N,K,first,timeout);
+	}
+
+	// marks a move given as x,y
+	private void mark(String xy) {
+		String[] f = xy.trim().split(",");
+		if(f.length < 2)
+			throw new IllegalArgumentException("expected x,y: " + xy);
+		B.markCell(Integer.parseInt(f[1].trim()),Integer.parseInt(f[0].trim()));
+	}
+
+	// the player moves and the move is sent
+	private void move() {
+		if(B.gameState() != MNKGameState.OPEN)
+			throw new IllegalStateException("the game is over: " + B.gameState());
+		MNKCell c = player.selectCell(B.getFreeCells(),B.getMarkedCells());
+		B.markCell(c.i,c.j);
+		out.println(c.j + "," + c.i);
+	}
+
+	/**
+	 * Reads a BOARD position up to DONE and replays it, the moves of the player that
+	 * moved first at the even indexes: with as many stones as the opponent the engine
+	 * moved first
+	 */
+	private void board(BufferedReader in) throws IOException {
+		List<String> own = new ArrayList<String>(), other = new ArrayList<String>();
+		for(String line = in.readLine(); line != null && !line.trim().equalsIgnoreCase("DONE"); line = in.readLine()) {
+			String[] f = line.trim().split(",");
+			if(f.length < 3)
+				throw new IllegalArgumentException("expected x,y,who: " + line);
+			(f[2].trim().equals("1") ? own : other).add(f[0] + "," + f[1]);
+		}
+		boolean first = own.size() == other.size();
+		if(own.size() != other.size() && own.size() + 1 != other.size())
+			throw new IllegalArgumentException("the engine has " + own.size() + " moves, the opponent " + other.size());
+		newGame();
+		List<String> p1 = first ? own : other, p2 = first ? other : own;
+		for(int x = 0; x < p1.size() + p2.size(); x++)
+			mark(x % 2 == 0 ? p1.get(x / 2) : p2.get(x / 2));
+		startPlayer(first);
+		move();
+	}
+
+	/**
+	 * Serves the commands until END or the end of the input
+	 */
+	void serve(BufferedReader in) throws IOException {
+		newGame();
+		for(String line = in.readLine(); line != null; line = in.readLine()) {
+			line = line.trim();
+			if(line.isEmpty()) continue;
+			String[] cmd = line.split("\\s+",2);
+			String arg = cmd.length > 1 ? cmd[1] : "";
+			try {
+				switch(cmd[0].toUpperCase()) {
+					case "START":
+						M = N = Integer.parseInt(arg.trim());
+						newGame();
+						out.println("OK");
+						break;
+					case "RECTSTART":
+						String[] wh = arg.split(",");
+						N = Integer.parseInt(wh[0].trim());
+						M = Integer.parseInt(wh[1].trim());
+						newGame();
+						out.println("OK");
+						break;
+					case "RESTART":
+						newGame();
+						out.println("OK");
+						break;
+					case "INFO":
+						String[] kv = arg.split("\\s+");
+						if(kv[0].equalsIgnoreCase("timeout_turn"))
+							timeout = Math.max(1, Integer.parseInt(kv[1]) / 1000);
+						else if(kv[0].equalsIgnoreCase("k"))
+							K = Integer.parseInt(kv[1]);
+						break; // other keys are ignored, as the protocol asks
+					case "BEGIN":
+						newGame();
+						startPlayer(true);
+						move();
+						break;
+					case "TURN":
+						mark(arg);
+						if(player == null)
+							startPlayer(false);
+						move();
+						break;
+					case "BOARD":
+						board(in);
+						break;
+					case "ABOUT":
+						out.println("name=\"" + playerClass.substring(playerClass.lastIndexOf('.') + 1) + "\", version=\"2.0\"");
+						break;
+					case "END":
+						return;
+					default:
+						out.println("UNKNOWN " + cmd[0]);
+				}
+			}
+			catch(RuntimeException e) {
+				out.println("ERROR " + line + ": " + e.getMessage());
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		String playerClass = args.length > 0 ? args[0] : "mnkgame.GW";
+		try {
+			MNKPlayerTester.newPlayer(playerClass); // fail now if the class is not valid
+		}
+		catch(IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+
+		// the protocol owns stdout
+		PrintStream out = new PrintStream(System.out, true, "UTF-8");
+		System.setOut(System.err);
+		BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+		new MNKEngineServer(playerClass, out).serve(in);
+	}
+}
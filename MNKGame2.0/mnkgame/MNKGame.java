@@ -26,6 +26,7 @@ import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
 import java.lang.reflect.*;
+import java.util.Arrays;
 import java.util.Random;
 
 import java.util.concurrent.Future;
@@ -38,7 +39,9 @@ import java.util.concurrent.Callable;
 
 /**
  * Initializes, updates and starts the (M,N,K)-game.
- * <p>Usage: MNKGame &lt;M&gt; &lt;N&gt; &lt;K&gt; [MNKPlayer class name]</p>
+ * Computer turns run off the Event Dispatch Thread, and with -f (or the F key) they
+ * start without a click, so computer vs computer games play on by themselves.
+ * <p>Usage: MNKGame [-f] &lt;M&gt; &lt;N&gt; &lt;K&gt; [MNKPlayer class name] [MNKPlayer class name]</p>
  */
 @SuppressWarnings("serial")
 public class MNKGame extends JFrame {
@@ -73,6 +76,9 @@ public class MNKGame extends JFrame {
 	private static MNKPlayer[] ComPlayer = new MNKPlayer[2];
 	private final int TIMEOUT = 10; // 10 seconds timeout
 
+	private static boolean fastForward; // computer turns start without a click
+	private ComputerTurn   turn;        // the running computer turn, null if none
+
 	// Random number generator
 	private Random Rand = new Random(System.currentTimeMillis());
 
@@ -95,6 +101,17 @@ public class MNKGame extends JFrame {
 
 		// Add MouseEvent upon mouse-click
 		board.addMouseListener(new MNKMouseAdapter());
+
+		// F toggles the fast-forward
+		getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F, 0), "fastForward");
+		getRootPane().getActionMap().put("fastForward", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				fastForward = !fastForward;
+				if(fastForward) nextTurn();
+				updateStatus();
+			}
+		});
  
 		// Setup the status bar (JLabel) to display status message
 		statusBar = new JLabel("  ");
@@ -115,23 +132,9 @@ public class MNKGame extends JFrame {
 	}
 
 	private class MNKMouseAdapter extends MouseAdapter {
-
-		private class StoppablePlayer implements Callable<MNKCell> {
-			private final MNKPlayer P;
-			private final MNKBoard  B;
-
-			public StoppablePlayer(MNKPlayer P, MNKBoard B) {
-				this.P = P;
-				this.B = B;
-			}
-	
-			public MNKCell call()  throws InterruptedException {
-				return P.selectCell(B.getFreeCells(),B.getMarkedCells());
-			}
-		}
-
 		@Override
 		public void mouseClicked(MouseEvent e) {  // mouse-clicked handler
+			if(turn != null) return; // a computer is thinking
 			int X = e.getX();
 			int Y = e.getY();
 			int i = Y / CELL_SIZE;
@@ -139,46 +142,117 @@ public class MNKGame extends JFrame {
 
 			if(B.gameState() == MNKGameState.OPEN) {	// Keep playing
 				if(Player[B.currentPlayer()] == MNKPlayerType.HUMAN) { // Human player
-						if (B.cellState(i,j) == MNKCellState.FREE)	// if position is already marked do nothing, wait for next click
+						if (i < B.M && j < B.N && B.cellState(i,j) == MNKCellState.FREE) {	// if position is already marked do nothing, wait for next click
 							B.markCell(i,j);
+							repaintCell(i,j);
+							if(B.gameState() != MNKGameState.OPEN) closePlayers();
+							if(fastForward) nextTurn();
+						}
 				} else { // Software player
-					int  curr = B.currentPlayer();
-					final ExecutorService executor = Executors.newSingleThreadExecutor();
-					final Future<MNKCell> task     = executor.submit(new StoppablePlayer(ComPlayer[curr],B));
-					executor.shutdown(); // Makes the  ExecutorService stop accepting new tasks
+					nextTurn();
+				}
+				updateStatus();
+			} else { // Restart game
+				initGame();
+			}
+		}
+	}
 
-					MNKCell c = null;
+	private static class StoppablePlayer implements Callable<MNKCell> {
+		private final MNKPlayer P;
+		private final MNKCell[] FC;
+		private final MNKCell[] MC;
 
-					try { 
-						// TIMEOUT secs + 10% more time
-  					c = task.get((int)(TIMEOUT+0.1*TIMEOUT), TimeUnit.SECONDS); 
-					}
-					catch(TimeoutException ex) {
-						executor.shutdownNow();	
-						System.err.println(ComPlayer[curr].playerName() + " interrupted due to timeout");
-						System.exit(1);
-					}
-					catch (Exception ex) { 
-						System.err.println("Error: " + ComPlayer[curr].playerName() + " interrupted due to exception");
-						System.err.println(" " + ex);
-						System.exit(1);
-					}
-					if (!executor.isTerminated())
-    				executor.shutdownNow(); 
+		public StoppablePlayer(MNKPlayer P, MNKCell[] FC, MNKCell[] MC) {
+			this.P  = P;
+			this.FC = FC;
+			this.MC = MC;
+		}
 
-					if(B.cellState(c.i,c.j) == MNKCellState.FREE) {
-						B.markCell(c.i,c.j);
-					} else {
-						System.err.println(ComPlayer[curr].playerName() + "  selected an illegal move!");
-						System.exit(1);
-       		}
+		public MNKCell call()  throws InterruptedException {
+			return P.selectCell(FC,MC);
+		}
+	}
+
+	/**
+	 * A computer turn, run off the Event Dispatch Thread: the player gets copies of the
+	 * free and marked cells, and its move is checked and marked on the EDT by done()
+	 */
+	private class ComputerTurn extends SwingWorker<MNKCell,Void> {
+		private final int       curr = B.currentPlayer();
+		private final MNKCell[] FC   = B.getFreeCells();
+		private final MNKCell[] MC   = B.getMarkedCells();
+
+		@Override
+		protected MNKCell doInBackground() throws Exception {
+			final ExecutorService executor = Executors.newSingleThreadExecutor();
+			final Future<MNKCell> task     = executor.submit(new StoppablePlayer(ComPlayer[curr],FC,MC));
+			executor.shutdown(); // Makes the  ExecutorService stop accepting new tasks
+			try {
+				// TIMEOUT secs + 10% more time
+				return task.get((int)(TIMEOUT+0.1*TIMEOUT), TimeUnit.SECONDS);
+			}
+			finally {
+				if (!executor.isTerminated())
+					executor.shutdownNow();
+			}
+		}
+
+		@Override
+		protected void done() {
+			turn = null;
+			MNKCell c = null;
+			try {
+				c = get();
+			}
+			catch(ExecutionException ex) {
+				if(ex.getCause() instanceof TimeoutException) {
+					System.err.println(ComPlayer[curr].playerName() + " interrupted due to timeout");
+				} else {
+					System.err.println("Error: " + ComPlayer[curr].playerName() + " interrupted due to exception");
+					System.err.println(" " + ex.getCause());
 				}
-			} else { // Restart game
-				initGame();
+				System.exit(1);
+			}
+			catch(Exception ex) {
+				System.err.println("Error: " + ComPlayer[curr].playerName() + " interrupted due to exception");
+				System.err.println(" " + ex);
+				System.exit(1);
+			}
+
+			if(c != null && B.cellState(c.i,c.j) == MNKCellState.FREE) {
+				B.markCell(c.i,c.j);
+				repaintCell(c.i,c.j);
+				if(B.gameState() != MNKGameState.OPEN) closePlayers();
+			} else {
+				System.err.println(ComPlayer[curr].playerName() + "  selected an illegal move!");
+				System.exit(1);
 			}
-			repaint();
+			if(fastForward) nextTurn();
+			updateStatus();
 		}
-	} 
+	}
+
+	/**
+	 * Starts the turn of the computer to move, if any and if no turn is running
+	 */
+	private void nextTurn() {
+		if(turn != null || B.gameState() != MNKGameState.OPEN || Player[B.currentPlayer()] != MNKPlayerType.COMPUTER)
+			return;
+		turn = new ComputerTurn();
+		turn.execute();
+	}
+
+	/** Releases the resources the computer players hold for the game, see MNKPlayerTester.closePlayer() */
+	private void closePlayers() {
+		for(MNKPlayer P : ComPlayer)
+			if(P != null) MNKPlayerTester.closePlayer(P);
+	}
+
+	/** Repaints only the region of the cell */
+	private void repaintCell(int i, int j) {
+		board.repaint(j * CELL_SIZE, i * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+	}
 
 	private void selectPlayerTurn() {
 		if(Player[0] == null) { 
@@ -244,7 +318,9 @@ public class MNKGame extends JFrame {
 		setTitle("(" + B.M + "," + B.N + "," + B.K + ")-Game   " + P1 + " vs " + P2);
     setVisible(true);  // show this JFrame
 			
-		repaint();
+		board.repaint();
+		updateStatus();
+		if(fastForward) nextTurn();
 	}
  
  
@@ -273,54 +349,66 @@ public class MNKGame extends JFrame {
 			g2d.setStroke(new BasicStroke(SYMBOL_STROKE_WIDTH, BasicStroke.CAP_ROUND,
 				BasicStroke.JOIN_ROUND));  
 
-			MNKCell[] list = B.getMarkedCells();
- 
-			for(MNKCell c : list) {
-				int x1 = c.j * CELL_SIZE + CELL_PADDING;
-				int y1 = c.i * CELL_SIZE + CELL_PADDING;
-				MNKCellState s = c.state;
-				if (s == MNKCellState.P1) {
-					g2d.setColor(Color.RED);
-					int x2 = (c.j + 1) * CELL_SIZE - CELL_PADDING;
-					int y2 = (c.i + 1) * CELL_SIZE - CELL_PADDING;
-					g2d.drawLine(x1, y1, x2, y2);
-					g2d.drawLine(x2, y1, x1, y2);
-				} else if(s == MNKCellState.P2) {
-					g2d.setColor(Color.BLUE);
-					g2d.drawOval(x1, y1, SYMBOL_SIZE, SYMBOL_SIZE);
+			// Only the cells in the region to repaint, usually a single cell
+			Rectangle clip = g.getClipBounds();
+			if(clip == null) clip = new Rectangle(0, 0, BOARD_WIDTH, BOARD_HEIGHT);
+			int rowMax = Math.min(B.M - 1, (clip.y + clip.height) / CELL_SIZE);
+			int colMax = Math.min(B.N - 1, (clip.x + clip.width) / CELL_SIZE);
+			for(int i = Math.max(0, clip.y / CELL_SIZE); i <= rowMax; i++) {
+				for(int j = Math.max(0, clip.x / CELL_SIZE); j <= colMax; j++) {
+					int x1 = j * CELL_SIZE + CELL_PADDING;
+					int y1 = i * CELL_SIZE + CELL_PADDING;
+					MNKCellState s = B.cellState(i,j);
+					if (s == MNKCellState.P1) {
+						g2d.setColor(Color.RED);
+						int x2 = (j + 1) * CELL_SIZE - CELL_PADDING;
+						int y2 = (i + 1) * CELL_SIZE - CELL_PADDING;
+						g2d.drawLine(x1, y1, x2, y2);
+						g2d.drawLine(x2, y1, x1, y2);
+					} else if(s == MNKCellState.P2) {
+						g2d.setColor(Color.BLUE);
+						g2d.drawOval(x1, y1, SYMBOL_SIZE, SYMBOL_SIZE);
+					}
 				}
-			} 
-
-			// Print status-bar message
-			switch(B.gameState()) {
-				case OPEN:
-					statusBar.setForeground(Color.BLACK);
-					String symbol = B.currentPlayer() == 0 ? "X" : "O";
-					String msg    = Player[B.currentPlayer()] == MNKPlayerType.COMPUTER ? "Click to run" : "Click to select";
-					String name   = Player[B.currentPlayer()] == MNKPlayerType.COMPUTER ? ComPlayer[B.currentPlayer()].playerName() : "Human";
-					statusBar.setText(symbol + "'s Turn (" + name + ") - " + msg);
-					break;
-				case DRAW:
-					statusBar.setForeground(Color.RED);
-					statusBar.setText("Draw! Click to play again.");
-					break;
-				case WINP1:
-					String name1 = Player[0] == MNKPlayerType.COMPUTER ? ComPlayer[0].playerName() : "Human";
-					statusBar.setForeground(Color.RED);
-					statusBar.setText("X (" + name1 + ") Won! Click to play again.");
-					break;
-				case WINP2:
-					String name2 = Player[1] == MNKPlayerType.COMPUTER ? ComPlayer[1].playerName() : "Human";
-					statusBar.setForeground(Color.RED);
-					statusBar.setText("O (" + name2 + ") Won! Click to play again.");
-					break;
 			}
 		}
 	}
 
+	/** Prints the status-bar message */
+	private void updateStatus() {
+		switch(B.gameState()) {
+			case OPEN:
+				statusBar.setForeground(Color.BLACK);
+				String symbol = B.currentPlayer() == 0 ? "X" : "O";
+				String msg    = Player[B.currentPlayer()] == MNKPlayerType.COMPUTER ? (turn != null ? "Thinking..." : "Click to run") : "Click to select";
+				String name   = Player[B.currentPlayer()] == MNKPlayerType.COMPUTER ? ComPlayer[B.currentPlayer()].playerName() : "Human";
+				statusBar.setText(symbol + "'s Turn (" + name + ") - " + msg + (fastForward ? " [F: fast-forward on]" : ""));
+				break;
+			case DRAW:
+				statusBar.setForeground(Color.RED);
+				statusBar.setText("Draw! Click to play again.");
+				break;
+			case WINP1:
+				String name1 = Player[0] == MNKPlayerType.COMPUTER ? ComPlayer[0].playerName() : "Human";
+				statusBar.setForeground(Color.RED);
+				statusBar.setText("X (" + name1 + ") Won! Click to play again.");
+				break;
+			case WINP2:
+				String name2 = Player[1] == MNKPlayerType.COMPUTER ? ComPlayer[1].playerName() : "Human";
+				statusBar.setForeground(Color.RED);
+				statusBar.setText("O (" + name2 + ") Won! Click to play again.");
+				break;
+		}
+	}
+
 	public static void main(String[] args) {
+		// -f: fast-forward, the computer turns start without a click (F toggles it)
+		if(args.length > 0 && args[0].equals("-f")) {
+			fastForward = true;
+			args = Arrays.copyOfRange(args, 1, args.length);
+		}
 		if(args.length != 3 && args.length != 4 && args.length != 5) {
-			System.err.println("Usage: MNKGame <M> <N> <K> [MNKPlayer class] [MNKPlayer class]");
+			System.err.println("Usage: MNKGame [-f] <M> <N> <K> [MNKPlayer class] [MNKPlayer class]");
 			 System.exit(0);
 		}	
 
@@ -25,6 +25,14 @@ package mnkgame;
 import java.util.List;
 import java.util.ArrayList;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
 import java.util.concurrent.Future;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ExecutorService;
@@ -46,21 +54,31 @@ import java.util.concurrent.Callable;
  * OPTIONS:<br>
  * &nbsp;&nbsp;-t &lt;timeout&gt; Timeout in seconds</br>
  * &nbsp;&nbsp;-r &lt;rounds&gt;  &nbsp;Number of rounds</br>
+ * &nbsp;&nbsp;-j &lt;jobs&gt; &nbsp;&nbsp;&nbsp;Number of rounds played concurrently</br>
+ * &nbsp;&nbsp;-o &lt;file&gt; &nbsp;&nbsp;&nbsp;Append the games to a file of GameRecords</br>
+ * &nbsp;&nbsp;-s &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;Statistics: per-move latency, CPU and allocation, and search statistics of the players that provide them</br>
  * &nbsp;&nbsp;-v &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;Verbose
  * </p>
+ * <p>
+ * Every round is played on its own board by freshly created players, so rounds can run in parallel
+ * (<code>-j</code>). Scores are always added up in round order, hence the final score does not depend
+ * on the number of jobs.
+ * </p>
  */
 public class MNKPlayerTester {
 	private static int     TIMEOUT = 10;
 	private static int     ROUNDS  = 1;
+	private static int     JOBS    = 1;
 	private static boolean VERBOSE = false;
+	private static boolean STATS   = false;
+	private static String  RECORDS = null;
 
 	private static int     M;
 	private static int     N;
 	private static int     K;
 
-	private static MNKBoard B;
-
-	private static MNKPlayer[] Player = new MNKPlayer[2];
+	private static String[]    PlayerClass = new String[2];
+	private static MNKPlayer[] Player      = new MNKPlayer[2];
 
 
 	/** Scoring system */
@@ -69,7 +87,7 @@ public class MNKPlayerTester {
 	private static int DRAWSCORE  = 1;
 	private static int ERRSCORE   = 2;
 
-	private enum GameState {
+	enum GameState {
 		WINP1, WINP2, DRAW, ERRP1, ERRP2, EP1EX, EP2EX;
 	}
 	
@@ -77,115 +95,298 @@ public class MNKPlayerTester {
 	private MNKPlayerTester() {
 	}
 
-	
-	private static void initGame() {
-		if(VERBOSE) System.out.println("Initializing " + M + "," + N + "," + K + " board");
-		B = new MNKBoard(M,N,K);
-		// Timed-out initializaton of the MNKPlayers
-		for(int k = 0; k < 2; k++) {
-			if(VERBOSE) if(VERBOSE) System.out.println("Initializing " + Player[k].playerName() + " as Player " + (k+1));
-			final int i = k; // need to have a final variable here 
-			final Runnable initPlayer = new Thread() {
-				@Override 
-				public void run() { 
-					Player[i].initPlayer(B.M,B.N,B.K,i == 0,TIMEOUT);
-				}
-			};
-
-			final ExecutorService executor = Executors.newSingleThreadExecutor();
-			final Future future = executor.submit(initPlayer);
-			executor.shutdown();
-			try { 
-				future.get(TIMEOUT, TimeUnit.SECONDS); 
-			} 
-			catch (TimeoutException e) {
-				System.err.println("Error: " + Player[i].playerName() + " interrupted: initialization takes too much time");
-				System.exit(1);
-			}
-			catch (Exception e) { 
-				System.err.println(e);
-				System.exit(1);		
-			}
-			if (!executor.isTerminated())
-				executor.shutdownNow();
+	/**
+	 * Creates a new instance of an MNKPlayer class through its empty constructor
+	 *
+	 * @throws IllegalArgumentException If the class does not exist or is not a valid MNKPlayer
+	 */
+	static MNKPlayer newPlayer(String className) throws IllegalArgumentException {
+		try {
+			return (MNKPlayer) Class.forName(className).getDeclaredConstructor().newInstance();
+		}
+		catch(ClassNotFoundException e) {
+			throw new IllegalArgumentException("Illegal argument: \'" + className + "\' class not found");
+		}
+		catch(ClassCastException e) {
+			throw new IllegalArgumentException("Illegal argument: \'" + className + "\' class does not implement the MNKPlayer interface");
+		}
+		catch(NoSuchMethodException e) {
+			throw new IllegalArgumentException("Illegal argument: \'" + className + "\' class constructor needs to be empty");
+		}
+		catch(Exception e) {
+			throw new IllegalArgumentException("Illegal argument: \'" + className + "\' class (unexpected exception) " + e);
 		}
-		if(VERBOSE) System.out.println();
 	}
 
-	private static class StoppablePlayer implements Callable<MNKCell> {
-		private final MNKPlayer P;
-		private final MNKBoard  B;
-
-		public StoppablePlayer(MNKPlayer P, MNKBoard B) {
-			this.P = P;
-			this.B = B;
+	/**
+	 * Releases the resources of a player that holds some, e.g. the engine process of an
+	 * EngineProcessPlayer, once its game is over
+	 */
+	static void closePlayer(MNKPlayer P) {
+		if(!(P instanceof AutoCloseable)) return;
+		try {
+			((AutoCloseable) P).close();
 		}
-
-		public MNKCell call()  throws InterruptedException {
-			return P.selectCell(B.getFreeCells(),B.getMarkedCells());
+		catch(Exception e) {
+			System.err.println("Error: cannot close " + P.playerName() + ": " + e);
 		}
 	}
 
-	private static GameState runGame() {
-		while(B.gameState() == MNKGameState.OPEN) {
-			int  curr = B.currentPlayer();
-			final ExecutorService executor = Executors.newSingleThreadExecutor();
-			final Future<MNKCell> task     = executor.submit(new StoppablePlayer(Player[curr],B));
-			executor.shutdown(); // Makes the  ExecutorService stop accepting new tasks
-			
-			MNKCell c = null;
-			
+	/**
+	 * A single game between two freshly created players on its own board.
+	 * <p>Matches share no state, so several of them can be played at the same time.</p>
+	 */
+	static class Match implements Callable<GameState> {
+		private final int         TIMEOUT;
+		private final boolean     VERBOSE;
+		private final boolean     STATS;
+		private final PrintStream out; // verbose output
+		private final MNKBoard    B;
+		private final MNKPlayer[] Player = new MNKPlayer[2];
+		// One thread per player, reused for its initialization and all its moves in this game
+		private final ExecutorService[] Executor = new ExecutorService[2];
+		/** Search statistics of the game for each player (empty if the player is not Instrumented) */
+		final SearchStats[] Stats = {new SearchStats(), new SearchStats()};
+		/** Time and memory spent by each player on its moves */
+		final MoveProfile[] Profile = {new MoveProfile(), new MoveProfile()};
+		/** Round number, only used to label the game in flight recordings */
+		int round;
+
+		/**
+		 * @param M Board rows
+		 * @param N Board columns
+		 * @param K Number of symbols to be aligned
+		 * @param P1 MNKPlayer class of the first player
+		 * @param P2 MNKPlayer class of the second player
+		 * @param timeout Timeout in seconds
+		 * @param verbose Whether to describe the game on <code>out</code>
+		 * @param stats Whether to collect the search statistics of the players
+		 * @param out Stream for the verbose output
+		 */
+		Match(int M, int N, int K, String P1, String P2, int timeout, boolean verbose, boolean stats, PrintStream out) {
+			this.TIMEOUT = timeout;
+			this.VERBOSE = verbose;
+			this.STATS   = stats;
+			this.out     = out;
+			this.B       = new MNKBoard(M,N,K);
+			this.Player[0] = newPlayer(P1);
+			this.Player[1] = newPlayer(P2);
+			for(int k = 0; k < 2; k++)
+				if(STATS && Player[k] instanceof Instrumented)
+					((Instrumented) Player[k]).setStatsEnabled(true);
+		}
+
+		public GameState call() {
+			TesterRoundEvent event = new TesterRoundEvent();
+			event.begin();
+			GameState state = null;
+			for(int k = 0; k < 2; k++)
+				Executor[k] = Executors.newSingleThreadExecutor();
 			try {
-				c = task.get(TIMEOUT, TimeUnit.SECONDS);
+				initGame();
+				state = runGame();
+				return state;
 			}
-			catch(TimeoutException ex) {
-				int n = 3; // Wait some more time to see if it stops
-				System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") interrupted due to timeout");
-				while(!task.isDone() && n > 0) {
-					System.err.println("Waiting for " + Player[curr].playerName() + " to stop ... (" + n + ")");
-					try {Thread.sleep(TIMEOUT*1000);} catch(InterruptedException e) {}
-					n--;
+			finally {
+				if(event.shouldCommit()) {
+					event.round   = round;
+					event.board   = B.M + "," + B.N + "," + B.K;
+					event.player1 = Player[0].playerName();
+					event.player2 = Player[1].playerName();
+					event.result  = String.valueOf(state);
+					event.moves   = B.getMarkedCells().length;
+					event.commit();
 				}
-				
-				if(n == 0) {
-					System.err.println("Player " + (curr+1) + " (" +Player[curr].playerName() + ") still running: game closed");
-					return curr == 0 ? GameState.EP1EX : GameState.EP2EX;
-				} else {
-					System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") eventually stopped: round closed");
-					return curr == 0 ? GameState.ERRP1 : GameState.ERRP2; 
+				// A player still running after a timeout keeps its thread until it stops, as before
+				for(int k = 0; k < 2; k++) {
+					Executor[k].shutdown();
+					closePlayer(Player[k]);
+				}
+			}
+		}
+
+		private void initGame() {
+			if(VERBOSE) out.println("Initializing " + B.M + "," + B.N + "," + B.K + " board");
+			// Timed-out initializaton of the MNKPlayers
+			for(int k = 0; k < 2; k++) {
+				if(VERBOSE) out.println("Initializing " + Player[k].playerName() + " as Player " + (k+1));
+				final int i = k; // need to have a final variable here 
+				final Runnable initPlayer = new Thread() {
+					@Override 
+					public void run() { 
+						Player[i].initPlayer(B.M,B.N,B.K,i == 0,TIMEOUT);
+					}
+				};
+
+				final Future future = Executor[i].submit(initPlayer);
+				try { 
+					future.get(TIMEOUT, TimeUnit.SECONDS); 
+				} 
+				catch (TimeoutException e) {
+					System.err.println("Error: " + Player[i].playerName() + " interrupted: initialization takes too much time");
+					System.exit(1);
+				}
+				catch (Exception e) { 
+					System.err.println(e);
+					System.exit(1);		
 				}
 			}
-			catch (Exception ex) {
-				int n = 3; // Wait some more time to see if it stops
-				System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") interrupted due to exception");
-				System.err.println(" " + ex);
-				while(!task.isDone() && n > 0) {
-					System.err.println("Waiting for " + Player[curr].playerName() + " to stop ... (" + n + ")");
-					try {Thread.sleep(TIMEOUT*1000);} catch(InterruptedException e) {}
-					n--;
+			if(VERBOSE) out.println();
+		}
+
+		private GameState runGame() {
+			while(B.gameState() == MNKGameState.OPEN) {
+				int  curr = B.currentPlayer();
+				final StoppablePlayer move = new StoppablePlayer(Player[curr],B);
+				final Future<MNKCell> task = Executor[curr].submit(move);
+				
+				MNKCell c = null;
+				
+				try {
+					c = task.get(TIMEOUT, TimeUnit.SECONDS);
+				}
+				catch(TimeoutException ex) {
+					Profile[curr].add(move,task.isDone(),TIMEOUT);
+					int n = 3; // Wait some more time to see if it stops
+					System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") interrupted due to timeout");
+					while(!task.isDone() && n > 0) {
+						System.err.println("Waiting for " + Player[curr].playerName() + " to stop ... (" + n + ")");
+						try {Thread.sleep(TIMEOUT*1000);} catch(InterruptedException e) {}
+						n--;
+					}
+					
+					if(n == 0) {
+						System.err.println("Player " + (curr+1) + " (" +Player[curr].playerName() + ") still running: game closed");
+						return curr == 0 ? GameState.EP1EX : GameState.EP2EX;
+					} else {
+						System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") eventually stopped: round closed");
+						return curr == 0 ? GameState.ERRP1 : GameState.ERRP2; 
+					}
 				}
-				if(n == 0) {
-					System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") still running: game closed");
-					return curr == 0 ? GameState.EP1EX : GameState.EP2EX;
+				catch (Exception ex) {
+					Profile[curr].add(move,task.isDone(),TIMEOUT);
+					int n = 3; // Wait some more time to see if it stops
+					System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") interrupted due to exception");
+					System.err.println(" " + ex);
+					while(!task.isDone() && n > 0) {
+						System.err.println("Waiting for " + Player[curr].playerName() + " to stop ... (" + n + ")");
+						try {Thread.sleep(TIMEOUT*1000);} catch(InterruptedException e) {}
+						n--;
+					}
+					if(n == 0) {
+						System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") still running: game closed");
+						return curr == 0 ? GameState.EP1EX : GameState.EP2EX;
+					} else {
+						System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") eventually stopped: round closed");
+						return curr == 0 ? GameState.ERRP1 : GameState.ERRP2;
+					}
+				}
+
+				Profile[curr].add(move);
+				SearchStats stats = STATS && Player[curr] instanceof Instrumented ? ((Instrumented) Player[curr]).lastSearchStats() : null;
+				if(stats != null) Stats[curr].add(stats);
+
+				if(B.cellState(c.i,c.j) == MNKCellState.FREE) {
+					if(VERBOSE) out.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") -> [" + c.i + "," + c.j + "]" + (stats != null ? "\t" + stats : ""));
+					B.markCell(c.i,c.j);
 				} else {
-					System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") eventually stopped: round closed");
+					System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ")  selected an illegal move [" + c.i + "," + c.j + "]: round closed");
 					return curr == 0 ? GameState.ERRP1 : GameState.ERRP2;
 				}
 			}
 			
-			if (!executor.isTerminated())
-				executor.shutdownNow();
+			return B.gameState() == MNKGameState.DRAW ? GameState.DRAW : (B.gameState() == MNKGameState.WINP1 ? GameState.WINP1 : GameState.WINP2);
+		}
 
-			if(B.cellState(c.i,c.j) == MNKCellState.FREE) {
-				if(VERBOSE) System.out.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ") -> [" + c.i + "," + c.j + "]");
-				B.markCell(c.i,c.j);
-			} else {
-				System.err.println("Player " + (curr+1) + " (" + Player[curr].playerName() + ")  selected an illegal move [" + c.i + "," + c.j + "]: round closed");
-				return curr == 0 ? GameState.ERRP1 : GameState.ERRP2;
+		/**
+		 * @param state Result of the game
+		 * @return The record of the game, to be called once it is over
+		 */
+		GameRecord record(GameState state) {
+			return new GameRecord(B,Player[0].playerName(),Player[1].playerName(),state);
+		}
+	}
+
+	private static class StoppablePlayer implements Callable<MNKCell> {
+		private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+		private final MNKPlayer P;
+		private final MNKBoard  B;
+
+		/** Cost of the move, -1 if the JVM cannot measure it */
+		volatile long wallNanos, cpuNanos = -1, allocatedBytes = -1;
+
+		public StoppablePlayer(MNKPlayer P, MNKBoard B) {
+			this.P = P;
+			this.B = B;
+		}
+
+		public MNKCell call()  throws InterruptedException {
+			long cpu = cpuTime(), alloc = allocatedBytes(), start = System.nanoTime();
+			try {
+				return P.selectCell(B.getFreeCells(),B.getMarkedCells());
+			}
+			finally {
+				wallNanos = System.nanoTime() - start;
+				if(cpu >= 0)   cpuNanos       = cpuTime() - cpu;
+				if(alloc >= 0) allocatedBytes = allocatedBytes() - alloc;
 			}
 		}
-		
-		return B.gameState() == MNKGameState.DRAW ? GameState.DRAW : (B.gameState() == MNKGameState.WINP1 ? GameState.WINP1 : GameState.WINP2);
+
+		private static long cpuTime() {
+			return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+		}
+
+		private static long allocatedBytes() {
+			if(!(THREADS instanceof com.sun.management.ThreadMXBean)) return -1;
+			com.sun.management.ThreadMXBean T = (com.sun.management.ThreadMXBean) THREADS;
+			if(!T.isThreadAllocatedMemorySupported() || !T.isThreadAllocatedMemoryEnabled()) return -1;
+			return T.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+	}
+
+	/**
+	 * Wall time histogram, CPU time and allocated memory of the moves of a player
+	 */
+	static class MoveProfile {
+		final LatencyHistogram Wall = new LatencyHistogram();
+		long CpuNanos, AllocatedBytes;
+		int  CpuMoves, AllocMoves; // moves for which the JVM could measure CPU time and allocation
+
+		private void add(StoppablePlayer move) {
+			Wall.record(move.wallNanos);
+			if(move.cpuNanos >= 0)       { CpuNanos += move.cpuNanos; CpuMoves++; }
+			if(move.allocatedBytes >= 0) { AllocatedBytes += move.allocatedBytes; AllocMoves++; }
+		}
+
+		/**
+		 * A move that timed out or failed: it counts as long as the timeout if it is still
+		 * running, so the slowest moves are not left out of the profile
+		 */
+		private void add(StoppablePlayer move, boolean finished, int timeout) {
+			if(finished) add(move);
+			else         Wall.record(timeout * 1_000_000_000L);
+		}
+
+		void add(MoveProfile p) {
+			Wall.add(p.Wall);
+			CpuNanos       += p.CpuNanos;
+			CpuMoves       += p.CpuMoves;
+			AllocatedBytes += p.AllocatedBytes;
+			AllocMoves     += p.AllocMoves;
+		}
+
+		/**
+		 * @param timeout Timeout in seconds, to tell how close the slowest move came to it
+		 */
+		String summary(int timeout) {
+			StringBuilder sb = new StringBuilder();
+			sb.append(Wall.count() + " moves, " + Wall);
+			sb.append(String.format(" (%.0f%% of timeout)", 100.0 * Wall.max() / (timeout * 1e9)));
+			if(CpuMoves > 0)   sb.append(String.format(", cpu %.1f ms/move", CpuNanos / 1e6 / CpuMoves));
+			if(AllocMoves > 0) sb.append(String.format(", alloc %.1f MB/move", AllocatedBytes / 1e6 / AllocMoves));
+			return sb.toString();
+		}
 	}
 
 	private static void parseArgs(String args[]) {
@@ -215,6 +416,27 @@ public class MNKPlayerTester {
 								throw new IllegalArgumentException("Illegal integer format for " + args[i-1] + " argument: " + args[i]);
 							}
 							break;
+						case 'j':
+							if(args.length < i+2)
+								throw new IllegalArgumentException("Expected parameter after " + args[i]);
+
+							try {
+								JOBS = Integer.parseInt(args[++i]);
+							} catch(NumberFormatException e) {
+								throw new IllegalArgumentException("Illegal integer format for " + args[i-1] + " argument: " + args[i]);
+							}
+							if(JOBS <= 0)
+								throw new IllegalArgumentException("Argument " + args[i-1] + " must be larger than 0");
+							break;
+						case 'o':
+							if(args.length < i+2)
+								throw new IllegalArgumentException("Expected parameter after " + args[i]);
+
+							RECORDS = args[++i];
+							break;
+						case 's':
+							STATS = true;
+							break;
 						case 'v':
 							VERBOSE = true;
 							break;
@@ -254,24 +476,10 @@ public class MNKPlayerTester {
 		if(M <= 0 || N <= 0 || K <= 0)
 			throw new IllegalArgumentException("Arguments  M, N, K must be larger than 0");
 
-		String[] P = {L.get(3),L.get(4)};
-		for(int i = 0; i < 2; i++) {
-			try {
-				Player[i] = (MNKPlayer) Class.forName(P[i]).getDeclaredConstructor().newInstance();
-			}
-			catch(ClassNotFoundException e) {
-				throw new IllegalArgumentException("Illegal argument: \'" + P[i] + "\' class not found");
-			}
-			catch(ClassCastException e) {
-				throw new IllegalArgumentException("Illegal argument: \'" + P[i] + "\' class does not implement the MNKPlayer interface");
-			}
-			catch(NoSuchMethodException e) {
-				throw new IllegalArgumentException("Illegal argument: \'" + P[i] + "\' class constructor needs to be empty");
-			}
-			catch(Exception e) {
-				throw new IllegalArgumentException("Illegal argument: \'" + P[i] + "\' class (unexpected exception) " + e);
-			}
-   		}
+		PlayerClass[0] = L.get(3);
+		PlayerClass[1] = L.get(4);
+		for(int i = 0; i < 2; i++)
+			Player[i] = newPlayer(PlayerClass[i]);
 	}
 
 	private static void printUsage() {
@@ -279,6 +487,9 @@ public class MNKPlayerTester {
 		System.err.println("OPTIONS:");
 		System.err.println("  -t <timeout>  Timeout in seconds. Default: " + TIMEOUT);
 		System.err.println("  -r <rounds>   Number of rounds. Default: " + ROUNDS);
+		System.err.println("  -j <jobs>     Number of rounds played concurrently. Default: " + JOBS);
+		System.err.println("  -o <file>     Append the games to a file of GameRecords. Default: none");
+		System.err.println("  -s            Statistics: per-move latency, CPU and allocation, and search statistics. Default: " + STATS);
 		System.err.println("  -v            Verbose. Default: " + VERBOSE);
 	}
 
@@ -306,14 +517,75 @@ public class MNKPlayerTester {
 			System.out.println("Player1   : " + Player[0].playerName());
 			System.out.println("Player2   : " + Player[1].playerName());
 			System.out.println("Rounds    : " + ROUNDS);
+			System.out.println("Jobs      : " + JOBS);
 			System.out.println("Timeout   : " + TIMEOUT + " secs\n\n");
 		}
 
+		// In parallel mode all the rounds are queued at once, each one writing its verbose
+		// output to its own buffer, and the results are then collected in round order
+		ExecutorService pool = null;
+		List<Match> matches = new ArrayList<Match>();
+		List<Future<GameState>> games = new ArrayList<Future<GameState>>();
+		List<ByteArrayOutputStream> logs = new ArrayList<ByteArrayOutputStream>();
+		if(JOBS > 1) {
+			pool = Executors.newFixedThreadPool(JOBS);
+			for(int i = 1; i <= ROUNDS; i++) {
+				ByteArrayOutputStream log = new ByteArrayOutputStream();
+				logs.add(log);
+				matches.add(new Match(M,N,K,PlayerClass[0],PlayerClass[1],TIMEOUT,VERBOSE,STATS,new PrintStream(log,true)));
+				matches.get(i-1).round = i;
+				games.add(pool.submit(matches.get(i-1)));
+			}
+			pool.shutdown();
+		}
+		GameRecordWriter records = null;
+		if(RECORDS != null) {
+			try {
+				records = new GameRecordWriter(Paths.get(RECORDS));
+			}
+			catch(IOException e) {
+				System.err.println("Error: cannot open " + RECORDS + ": " + e);
+				System.exit(1);
+			}
+		}
+		SearchStats[] STATSP = {new SearchStats(), new SearchStats()};
+		MoveProfile[] PROFILE = {new MoveProfile(), new MoveProfile()};
+
 		boolean stop = false;
 		for(int i = 1; i <= ROUNDS && !stop; i++) {
 			if(VERBOSE) System.out.println("\n**** ROUND " + i + " ****");
-			initGame();
-			GameState state = runGame();
+			GameState state;
+			Match match;
+			if(pool == null) {
+				match = new Match(M,N,K,PlayerClass[0],PlayerClass[1],TIMEOUT,VERBOSE,STATS,System.out);
+				match.round = i;
+				state = match.call();
+			} else {
+				match = matches.get(i-1);
+				try {
+					state = games.get(i-1).get();
+				}
+				catch(InterruptedException | ExecutionException e) {
+					System.err.println(e);
+					System.exit(1);
+					return;
+				}
+				System.out.print(logs.get(i-1).toString());
+			}
+			for(int k = 0; k < 2; k++) {
+				STATSP[k].add(match.Stats[k]);
+				PROFILE[k].add(match.Profile[k]);
+			}
+			if(records != null) {
+				try {
+					records.write(match.record(state));
+				}
+				catch(IOException e) {
+					System.err.println("Error: cannot write " + RECORDS + ": " + e);
+					records = null;
+				}
+			}
+			if(pool != null) matches.set(i-1, null); // collected, no need to keep it
 
 			switch(state) {
 				case WINP1: P1SCORE += WINP1SCORE; STATP1[0]++; break;
@@ -331,10 +603,28 @@ public class MNKPlayerTester {
 				System.out.println("Current score : " + Player[0].playerName() + " (" + P1SCORE + ") - " + Player[1].playerName() + " (" + P2SCORE + ")");
 			}
 		}
+		if(pool != null && stop)
+			pool.shutdownNow(); // the remaining rounds are not counted
+		if(records != null) {
+			try {
+				records.close();
+			}
+			catch(IOException e) {
+				System.err.println("Error: cannot write " + RECORDS + ": " + e);
+			}
+		}
 		if(VERBOSE) System.out.println("\n**** FINAL SCORE ****");
 		System.out.print("(" + M + ", " + N + ", " + K + ")\t");
 		System.out.print(Player[0].playerName() + ": (" + STATP1[0] + ", " + STATP2[0] + ", " + STATP1[1] + ", " + STATP1[2] + ") == " + P1SCORE + "\t\t");
 		System.out.print(Player[1].playerName() + ": (" + STATP2[0] + ", " + STATP1[0] + ", " + STATP2[1] + ", " + STATP2[2] + ") == " + P2SCORE + "\t");
+		if(STATS) {
+			System.out.println();
+			for(int k = 0; k < 2; k++) {
+				System.out.println(Player[k].playerName() + " moves: " + PROFILE[k].summary(TIMEOUT));
+				if(STATSP[k].searches > 0)
+					System.out.println(Player[k].playerName() + " search: " + STATSP[k]);
+			}
+		}
 
 		//System.out.println(Player[0].playerName() + " Score: " + P1SCORE + " \n\t\tWon: " + STATP1[0] + " Lost: " + STATP2[0] + " Draw: " + STATP1[1] + " \n\t\tError: " + STATP1[2]);
 		//System.out.println(Player[1].playerName() + " Score: " + P2SCORE + " \n\t\tWon: " + STATP2[0] + " Lost: " + STATP1[0] + " Draw: " + STATP2[1] + " \n\t\tError: " + STATP2[2]);	
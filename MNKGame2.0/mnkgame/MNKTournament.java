@@ -0,0 +1,335 @@
+package mnkgame;
+
+import java.util.List;
+import java.util.ArrayList;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Plays a round-robin tournament among several MNKPlayer classes on one or more (M,N,K) boards
+ * and prints, for every pairing, the game tallies and the Elo difference with its 95% error bar.
+ * <p>
+ * Every pairing plays pairs of games with swapped colours, so that each player is first in half
+ * of the games. With <code>-s</code> every pairing is also tested with a sequential probability
+ * ratio test (SPRT) of H0: elo = elo0 against H1: elo = elo1, and stops as soon as either
+ * hypothesis is accepted instead of playing all the rounds.
+ * </p>
+ * <p>
+ * Usage: MNKTournament [OPTIONS] &lt;MNKPlayer class name&gt; &lt;MNKPlayer class name&gt; [&lt;MNKPlayer class name&gt; ...]<br/>
+ * OPTIONS:<br>
+ * &nbsp;&nbsp;-c &lt;M,N,K&gt; Board configuration, can be repeated</br>
+ * &nbsp;&nbsp;-t &lt;timeout&gt; Timeout in seconds</br>
+ * &nbsp;&nbsp;-r &lt;rounds&gt; Maximum number of game pairs for every pairing and board</br>
+ * &nbsp;&nbsp;-j &lt;jobs&gt; Number of game pairs played concurrently</br>
+ * &nbsp;&nbsp;-s &lt;elo0,elo1[,alpha,beta]&gt; SPRT bounds and error probabilities</br>
+ * </p>
+ */
+public class MNKTournament {
+	private static int     TIMEOUT = 10;
+	private static int     ROUNDS  = 10;
+	private static int     JOBS    = 1;
+
+	private static List<int[]>  Config      = new ArrayList<int[]>();
+	private static List<String> PlayerClass = new ArrayList<String>();
+	private static List<String> PlayerName  = new ArrayList<String>();
+
+	/** SPRT parameters, the test is off if SPRT is false */
+	private static boolean SPRT  = false;
+	private static double  ELO0  = 0;
+	private static double  ELO1  = 5;
+	private static double  ALPHA = 0.05;
+	private static double  BETA  = 0.05;
+
+	private MNKTournament() {
+	}
+
+	/**
+	 * Wins, draws and losses of a player against another, with the Elo estimate and SPRT
+	 * statistics they lead to.
+	 * The Elo difference is estimated from the mean score of the games, its error from the
+	 * variance of the single game scores (trinomial model). The variance counts a virtual
+	 * draw, so that it is not 0 when a player wins or loses every game, and the scores are
+	 * kept half a game away from 0 and 1, where the Elo difference is infinite.
+	 */
+	static class Score {
+		int w, d, l;
+
+		void add(Score s) {
+			w += s.w;
+			d += s.d;
+			l += s.l;
+		}
+
+		int games() { return w + d + l; }
+
+		/** Mean score per game, between 0 and 1 */
+		double mean() { return (w + d / 2.0) / games(); }
+
+		/** Variance of the score of a single game, with a virtual draw */
+		double variance() {
+			double m = (w + (d + 1) / 2.0) / (games() + 1);
+			return (w * (1 - m) * (1 - m) + (d + 1) * (0.5 - m) * (0.5 - m) + l * m * m) / (games() + 1);
+		}
+
+		/** The score moved at least half a game away from 0 and 1 */
+		private double clamp(double score) {
+			double h = 0.5 / games();
+			return Math.min(Math.max(score, h), 1 - h);
+		}
+
+		/** Half width of the 95% confidence interval of mean() */
+		private double margin() { return 1.96 * Math.sqrt(variance() / games()); }
+
+		double elo() { return elo(clamp(mean())); }
+
+		/** Ends of the 95% confidence interval of elo() */
+		double eloLow()  { return elo(clamp(mean() - margin())); }
+		double eloHigh() { return elo(clamp(mean() + margin())); }
+
+		/** Half width of the 95% confidence interval of elo() */
+		double eloError() { return (eloHigh() - eloLow()) / 2; }
+
+		/**
+		 * Log-likelihood ratio of elo1 against elo0 with the normal approximation of the
+		 * score distribution
+		 */
+		double llr(double elo0, double elo1) {
+			if(games() == 0) return 0;
+			double var = variance();
+			double s0 = score(elo0), s1 = score(elo1);
+			return games() * (s1 - s0) * (2 * mean() - s0 - s1) / (2 * var);
+		}
+
+		static double elo(double score) {
+			if(score <= 0) return Double.NEGATIVE_INFINITY;
+			if(score >= 1) return Double.POSITIVE_INFINITY;
+			return -400 * Math.log10(1 / score - 1);
+		}
+
+		static double score(double elo) {
+			return 1 / (1 + Math.pow(10, -elo / 400));
+		}
+
+		public String toString() {
+			if(games() == 0) return "(0, 0, 0)";
+			// one-sided results only bound the Elo difference
+			if(w == games()) return String.format("(%d, %d, %d)  elo > %+.1f", w, d, l, eloLow());
+			if(l == games()) return String.format("(%d, %d, %d)  elo < %+.1f", w, d, l, eloHigh());
+			return String.format("(%d, %d, %d)  elo %+.1f +/- %.1f", w, d, l, elo(), eloError());
+		}
+	}
+
+	/** Lower and upper SPRT bounds on the log-likelihood ratio */
+	private static double lowerBound() { return Math.log(BETA / (1 - ALPHA)); }
+	private static double upperBound() { return Math.log((1 - BETA) / ALPHA); }
+
+	/** The game from the point of view of the player who moved first or second */
+	private static Score outcome(MNKPlayerTester.GameState state, boolean first) {
+		Score s = new Score();
+		switch(state) {
+			case WINP1: if(first) s.w++; else s.l++; break;
+			case WINP2: if(first) s.l++; else s.w++; break;
+			case ERRP1: 
+			case EP1EX: if(first) s.l++; else s.w++; break;
+			case ERRP2: 
+			case EP2EX: if(first) s.w++; else s.l++; break;
+			case DRAW : s.d++; break;
+		}
+		return s;
+	}
+
+	/**
+	 * Plays the pairing a vs b on one board, in batches of JOBS game pairs, and returns the
+	 * score of a. Results are added up and tested in game order, so where the SPRT stops
+	 * does not depend on the number of jobs
+	 */
+	private static Score playPairing(ExecutorService pool, int[] cfg, int a, int b) throws InterruptedException, ExecutionException {
+		Score score = new Score();
+		String A = PlayerClass.get(a), B = PlayerClass.get(b);
+		int played = 0;
+		while(played < ROUNDS) {
+			int batch = Math.min(JOBS, ROUNDS - played);
+			List<Future<MNKPlayerTester.GameState>> games = new ArrayList<Future<MNKPlayerTester.GameState>>();
+			for(int i = 0; i < batch; i++) {
+				games.add(pool.submit(new MNKPlayerTester.Match(cfg[0],cfg[1],cfg[2],A,B,TIMEOUT,false,false,System.out)));
+				games.add(pool.submit(new MNKPlayerTester.Match(cfg[0],cfg[1],cfg[2],B,A,TIMEOUT,false,false,System.out)));
+			}
+			// the test is checked after every game pair, the rest of the batch is discarded once
+			// decided: the games not started are cancelled, the running ones are waited for, so
+			// that they do not take CPU time from the timed moves of the next pairing
+			for(int i = 0; i < games.size(); i += 2) {
+				score.add(outcome(games.get(i).get(), true));
+				score.add(outcome(games.get(i+1).get(), false));
+				played++;
+
+				if(SPRT) {
+					double llr = score.llr(ELO0, ELO1);
+					if(llr <= lowerBound() || llr >= upperBound()) {
+						for(Future<MNKPlayerTester.GameState> g : games) g.cancel(false);
+						for(Future<MNKPlayerTester.GameState> g : games)
+							if(!g.isCancelled()) g.get();
+						return score;
+					}
+				}
+			}
+		}
+		return score;
+	}
+
+	private static int[] parseConfig(String arg) throws IllegalArgumentException {
+		String[] v = arg.split(",");
+		if(v.length != 3)
+			throw new IllegalArgumentException("Illegal board configuration: " + arg + " (expected M,N,K)");
+		int[] cfg = new int[3];
+		try {
+			for(int i = 0; i < 3; i++) cfg[i] = Integer.parseInt(v[i].trim());
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Illegal integer format in board configuration: " + arg);
+		}
+		if(cfg[0] <= 0 || cfg[1] <= 0 || cfg[2] <= 0)
+			throw new IllegalArgumentException("Arguments  M, N, K must be larger than 0: " + arg);
+		return cfg;
+	}
+
+	private static void parseSPRT(String arg) throws IllegalArgumentException {
+		String[] v = arg.split(",");
+		if(v.length != 2 && v.length != 4)
+			throw new IllegalArgumentException("Illegal SPRT parameters: " + arg + " (expected elo0,elo1[,alpha,beta])");
+		try {
+			ELO0 = Double.parseDouble(v[0]);
+			ELO1 = Double.parseDouble(v[1]);
+			if(v.length == 4) {
+				ALPHA = Double.parseDouble(v[2]);
+				BETA  = Double.parseDouble(v[3]);
+			}
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Illegal number format in SPRT parameters: " + arg);
+		}
+		if(ELO0 >= ELO1 || ALPHA <= 0 || ALPHA >= 1 || BETA <= 0 || BETA >= 1)
+			throw new IllegalArgumentException("SPRT parameters need elo0 < elo1 and 0 < alpha, beta < 1: " + arg);
+		SPRT = true;
+	}
+
+	private static int parseInt(String args[], int i) throws IllegalArgumentException {
+		if(args.length < i+2)
+			throw new IllegalArgumentException("Expected parameter after " + args[i]);
+		try {
+			int n = Integer.parseInt(args[i+1]);
+			if(n <= 0) throw new IllegalArgumentException("Argument " + args[i] + " must be larger than 0");
+			return n;
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Illegal integer format for " + args[i] + " argument: " + args[i+1]);
+		}
+	}
+
+	private static void parseArgs(String args[]) {
+		for (int i = 0; i < args.length; i++) {
+			switch(args[i].charAt(0)) {
+				case '-':
+					char c = (args[i].length() != 2 ? 'x' : args[i].charAt(1));
+					switch(c) {
+						case 't': TIMEOUT = parseInt(args, i++); break;
+						case 'r': ROUNDS  = parseInt(args, i++); break;
+						case 'j': JOBS    = parseInt(args, i++); break;
+						case 'c':
+							if(args.length < i+2)
+								throw new IllegalArgumentException("Expected parameter after " + args[i]);
+							Config.add(parseConfig(args[++i]));
+							break;
+						case 's':
+							if(args.length < i+2)
+								throw new IllegalArgumentException("Expected parameter after " + args[i]);
+							parseSPRT(args[++i]);
+							break;
+						default: 
+							throw new IllegalArgumentException("Illegal argument:  " + args[i]);
+					}
+					break;
+				default:
+					PlayerClass.add(args[i]);
+			}
+		}
+
+		if(PlayerClass.size() < 2)
+			throw new IllegalArgumentException("Missing arguments: at least two <MNKPlayer class> are needed");
+		if(Config.isEmpty())
+			Config.add(new int[] {5, 5, 4});
+
+		for(String P : PlayerClass)
+			PlayerName.add(MNKPlayerTester.newPlayer(P).playerName());
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: MNKTournament [OPTIONS] <MNKPlayer class> <MNKPlayer class> [<MNKPlayer class> ...]");
+		System.err.println("OPTIONS:");
+		System.err.println("  -c <M,N,K>    Board configuration, can be repeated. Default: 5,5,4");
+		System.err.println("  -t <timeout>  Timeout in seconds. Default: " + TIMEOUT);
+		System.err.println("  -r <rounds>   Maximum number of game pairs (colours swapped) per pairing and board. Default: " + ROUNDS);
+		System.err.println("  -j <jobs>     Number of game pairs played concurrently. Default: " + JOBS);
+		System.err.println("  -s <elo0,elo1[,alpha,beta]>  Stop every pairing as soon as the SPRT is decided. Default alpha, beta: " + ALPHA + ", " + BETA);
+	}
+
+	public static void main(String[] args) {
+		if(args.length == 0) {	
+			printUsage();
+			System.exit(0);
+		}
+		
+		try {
+			parseArgs(args);
+		}
+		catch(Exception e) {
+			System.err.println(e);
+			System.exit(1);	
+		}
+
+		int P = PlayerClass.size();
+		Score[][] total = new Score[P][P]; // total[a][b] is the score of a against b on all boards
+		for(int a = 0; a < P; a++)
+			for(int b = 0; b < P; b++)
+				total[a][b] = new Score();
+
+		ExecutorService pool = Executors.newFixedThreadPool(2 * JOBS);
+		try {
+			for(int[] cfg : Config) {
+				System.out.println("**** (" + cfg[0] + ", " + cfg[1] + ", " + cfg[2] + ") ****");
+				for(int a = 0; a < P; a++) {
+					for(int b = a + 1; b < P; b++) {
+						Score s = playPairing(pool, cfg, a, b);
+						total[a][b].add(s);
+						total[b][a].w += s.l;
+						total[b][a].d += s.d;
+						total[b][a].l += s.w;
+
+						System.out.print(PlayerName.get(a) + " vs " + PlayerName.get(b) + ": " + s);
+						if(SPRT) {
+							double llr = s.llr(ELO0, ELO1);
+							String verdict = llr >= upperBound() ? "H1 accepted" : llr <= lowerBound() ? "H0 accepted" : "undecided";
+							System.out.printf("  LLR %.2f [%.2f, %.2f] %s", llr, lowerBound(), upperBound(), verdict);
+						}
+						System.out.println();
+					}
+				}
+				System.out.println();
+			}
+		}
+		catch(InterruptedException | ExecutionException e) {
+			System.err.println(e);
+			System.exit(1);
+		}
+		finally {
+			pool.shutdownNow();
+		}
+
+		System.out.println("**** FINAL STANDINGS ****");
+		for(int a = 0; a < P; a++) {
+			Score field = new Score();
+			for(int b = 0; b < P; b++)
+				if(b != a) field.add(total[a][b]);
+			System.out.println(PlayerName.get(a) + " vs field: " + field);
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package mnkgame;
+
+/**
+ * The moves to search in a position, most promising first.
+ * The first <code>tactical</code> cells are the ones that win, block or touch a
+ * threat; the rest are quiet cells of the frontier
+ */
+public class MoveList {
+    public MNKCell[] cells;
+    public int tactical;
+    public boolean forced; // true if cells only holds immediate wins or mandatory blocks
+
+    public MoveList(MNKCell[] cells, int tactical, boolean forced) {
+        this.cells = cells;
+        this.tactical = tactical;
+        this.forced = forced;
+    }
+
+    public int size() { return cells.length; }
+}
@@ -0,0 +1,55 @@
+package mnkgame;
+
+import java.util.List;
+
+/**
+ * A root move with its score and principal variation, see GW.searchLine()
+ */
+public class PVLine {
+    public final MNKCell[] moves; // the root move first
+    public final int score; // from the point of view of the player to move at the root
+    public final int depth; // plies searched, counting the root move
+    public final boolean exact; // false if the score is only an upper bound
+
+    public PVLine(MNKCell[] moves, int score, int depth, boolean exact) {
+        this.moves = moves;
+        this.score = score;
+        this.depth = depth;
+        this.exact = exact;
+    }
+
+    public MNKCell move() {
+        return moves[0];
+    }
+
+    /**
+     * @return the score a line has to beat to enter the best <code>lines</code>
+     */
+    public static int bound(List<PVLine> best, int lines) {
+        return best.size() < lines ? Integer.MIN_VALUE : best.get(lines - 1).score;
+    }
+
+    /**
+     * Adds the line to the best ones, sorted by score, if it is exact and good enough
+     */
+    public static void keepBest(List<PVLine> best, PVLine line, int lines) {
+        if (!line.exact || line.score <= bound(best, lines))
+            return;
+        int x = 0;
+        while (x < best.size() && best.get(x).score >= line.score)
+            x++;
+        best.add(x, line);
+        if (best.size() > lines)
+            best.remove(lines);
+    }
+
+    /**
+     * @return the moves as i,j pairs separated by spaces
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (MNKCell c : moves)
+            sb.append(sb.length() == 0 ? "" : " ").append(c.i).append(',').append(c.j);
+        return sb.toString();
+    }
+}
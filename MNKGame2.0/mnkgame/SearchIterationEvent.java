@@ -0,0 +1,31 @@
+package mnkgame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event spanning one iteration of GW.iterativeDeepening
+ */
+@Name("mnkgame.SearchIteration")
+@Label("Search Iteration")
+@Category("MNKGame")
+@Description("One iterative deepening iteration of GW")
+public class SearchIterationEvent extends Event {
+    @Label("Depth")
+    @Description("Depth of the iteration, in plies")
+    public int depth;
+
+    @Label("Nodes")
+    @Description("Nodes visited by the search so far")
+    public long nodes;
+
+    @Label("Completed")
+    @Description("False if the iteration was cut short by the time limit or the node budget")
+    public boolean completed;
+
+    @Label("Best Cell")
+    public String cell;
+}
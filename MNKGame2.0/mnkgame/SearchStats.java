@@ -0,0 +1,112 @@
+package mnkgame;
+
+/**
+ * Statistics of one search (one selectCell), or the sum of several of them.
+ * <p>
+ * The time spent in each phase is sampled: only one call every <code>SAMPLE</code> is timed and
+ * its duration is scaled up, so that timing does not cost a System.nanoTime() per node
+ * </p>
+ */
+public class SearchStats {
+    public static final int SAMPLE = 64; // must be a power of 2
+
+    public enum Phase {
+        UPDATE_THREATS, EVALUATE, MOVE_GENERATION
+    }
+
+    public int searches; // no. of searches summed up in these statistics
+    public int completedDepth; // deepest iteration completed (summed over the searches)
+    public long nodes;
+    public long interiorNodes; // nodes whose moves were searched
+    public long quiescenceNodes; // nodes searched past the depth limit, included in nodes
+    public long reductions; // moves searched at reduced depth
+    public long reSearches; // reduced moves searched again at full depth
+    public long betaCutoffs;
+    public long firstMoveCutoffs; // cutoffs caused by the first move searched
+    public long transpositionHits; // GW has no transposition table yet: always 0
+    public long nanos; // total search time
+    public long[] phaseNanos = new long[Phase.values().length]; // sampled, already scaled up
+    private long[] phaseCalls = new long[Phase.values().length];
+
+    /**
+     * @return true if this call of the phase has to be timed
+     */
+    public boolean sample(Phase phase) {
+        return (phaseCalls[phase.ordinal()]++ & (SAMPLE - 1)) == 0;
+    }
+
+    public void addPhaseTime(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] += nanos * SAMPLE;
+    }
+
+    public void add(SearchStats s) {
+        searches += s.searches;
+        completedDepth += s.completedDepth;
+        nodes += s.nodes;
+        interiorNodes += s.interiorNodes;
+        quiescenceNodes += s.quiescenceNodes;
+        reductions += s.reductions;
+        reSearches += s.reSearches;
+        betaCutoffs += s.betaCutoffs;
+        firstMoveCutoffs += s.firstMoveCutoffs;
+        transpositionHits += s.transpositionHits;
+        nanos += s.nanos;
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] += s.phaseNanos[i];
+            phaseCalls[i] += s.phaseCalls[i];
+        }
+    }
+
+    /**
+     * @return nodes per second
+     */
+    public double nps() {
+        return nanos == 0 ? 0 : nodes * 1e9 / nanos;
+    }
+
+    /**
+     * @return completed plies per second of search, which grows when pruning and
+     *         reductions let the same time reach deeper
+     */
+    public double depthPerSecond() {
+        return nanos == 0 ? 0 : completedDepth * 1e9 / nanos;
+    }
+
+    /**
+     * @return the fraction of reduced moves that had to be searched again
+     */
+    public double reSearchRate() {
+        return reductions == 0 ? 0 : (double) reSearches / reductions;
+    }
+
+    /**
+     * @return the fraction of interior nodes that ended with a beta cutoff
+     */
+    public double cutoffRate() {
+        return interiorNodes == 0 ? 0 : (double) betaCutoffs / interiorNodes;
+    }
+
+    /**
+     * @return the fraction of beta cutoffs caused by the first move (a measure of move ordering)
+     */
+    public double firstMoveCutoffRate() {
+        return betaCutoffs == 0 ? 0 : (double) firstMoveCutoffs / betaCutoffs;
+    }
+
+    /**
+     * @return the estimated fraction of the search time spent in the phase
+     */
+    public double timeShare(Phase phase) {
+        return nanos == 0 ? 0 : Math.min(1, (double) phaseNanos[phase.ordinal()] / nanos);
+    }
+
+    public String toString() {
+        double avgDepth = searches == 0 ? completedDepth : (double) completedDepth / searches;
+        return String.format("depth %.1f (%.1f plies/s), %d nodes (%d quiescence), %.0f nps, cutoffs %.1f%% (first move %.1f%%), "
+                + "reductions %d (%.1f%% re-searched), tt hits %d, time: threats %.0f%% eval %.0f%% movegen %.0f%%",
+                avgDepth, depthPerSecond(), nodes, quiescenceNodes, nps(), 100 * cutoffRate(),
+                100 * firstMoveCutoffRate(), reductions, 100 * reSearchRate(), transpositionHits,
+                100 * timeShare(Phase.UPDATE_THREATS), 100 * timeShare(Phase.EVALUATE),
+                100 * timeShare(Phase.MOVE_GENERATION));
+    }
+}
@@ -0,0 +1,38 @@
+package mnkgame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+
+/**
+ * Java Flight Recorder event spanning one GW.selectCell, so that slow moves can be
+ * correlated with GC pauses and safepoints in a recording
+ */
+@Name("mnkgame.SelectCell")
+@Label("Select Cell")
+@Category("MNKGame")
+@Description("One move selection of GW")
+public class SelectCellEvent extends Event {
+    @Label("Player")
+    public String player;
+
+    @Label("Board")
+    public String board;
+
+    @Label("Depth Reached")
+    @Description("Deepest search iteration completed, in plies")
+    public int depth;
+
+    @Label("Nodes")
+    public long nodes;
+
+    @Label("Board Fill")
+    @Percentage
+    public double fill;
+
+    @Label("Selected Cell")
+    public String cell;
+}
@@ -0,0 +1,243 @@
+package mnkgame;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates labelled positions for tuning the evaluation: plays many games between two
+ * MNKPlayer classes in parallel, GW searching at a fixed node budget, and appends one
+ * line per game to a text file:
+ * <pre>
+ * M,N,K;result;i,j[,score] i,j[,score] ...
+ * </pre>
+ * <code>result</code> is the outcome for the first player (1 win, 0.5 draw, 0 loss) and
+ * each move is followed by the score of the search that chose it, from the point of view
+ * of the first player, when the mover is a GW that searched. The moves of the random
+ * opening and the forced moves, played without a search, have no score. Every prefix of the moves is a position labelled with the outcome of the game.
+ * <p>
+ * Games are played by JOBS threads and handed to a single writer thread through a bounded
+ * queue, so memory does not grow with the number of games.
+ * </p>
+ * <p>
+ * Usage: SelfPlay [OPTIONS] &lt;M&gt; &lt;N&gt; &lt;K&gt; [&lt;MNKPlayer class name&gt; [&lt;MNKPlayer class name&gt;]]<br/>
+ * OPTIONS:<br>
+ * &nbsp;&nbsp;-g &lt;games&gt; Number of games</br>
+ * &nbsp;&nbsp;-j &lt;jobs&gt; Number of games played concurrently</br>
+ * &nbsp;&nbsp;-n &lt;nodes&gt; Node budget of every GW move</br>
+ * &nbsp;&nbsp;-p &lt;plies&gt; Maximum number of random opening moves</br>
+ * &nbsp;&nbsp;-s &lt;seed&gt; Seed of the openings</br>
+ * &nbsp;&nbsp;-o &lt;file&gt; Output file, appended to</br>
+ * </p>
+ */
+public class SelfPlay {
+	private static int    GAMES  = 100;
+	private static int    JOBS   = Runtime.getRuntime().availableProcessors();
+	private static int    NODES  = 2000;
+	private static int    PLIES  = 4;
+	private static long   SEED   = 1;
+	private static String OUTPUT = "selfplay.txt";
+
+	private static int    M;
+	private static int    N;
+	private static int    K;
+	private static String[] PlayerClass = {"mnkgame.GW", "mnkgame.GW"};
+
+	/** Games waiting to be written, the players stop when it is full */
+	private static final int QUEUE = 1024;
+	private static final String END = "";
+
+	private SelfPlay() {
+	}
+
+	/**
+	 * Plays a game from a random opening of up to PLIES moves
+	 *
+	 * @param seed Seed of the opening, so that a game can be replayed from its number
+	 * @return The line describing the game
+	 */
+	static String playGame(long seed) {
+		Random random = new Random(seed);
+		Board B = new Board(M,N,K);
+		MNKPlayer[] Player = new MNKPlayer[2];
+		for(int k = 0; k < 2; k++) {
+			Player[k] = MNKPlayerTester.newPlayer(PlayerClass[k]);
+			if(Player[k] instanceof GW) ((GW) Player[k]).setNodeBudget(NODES);
+			Player[k].initPlayer(M,N,K,k == 0,Integer.MAX_VALUE / 1000);
+		}
+
+		StringBuilder moves = new StringBuilder();
+		// the opening never ends the game: a winning random move is not played
+		int plies = random.nextInt(PLIES + 1);
+		for(int x = 0; x < plies; x++) {
+			MNKCell[] candidates = B.getCandidateCells();
+			MNKCell c = candidates[random.nextInt(candidates.length)];
+			if(B.markCell(c.i,c.j) != MNKGameState.OPEN) {
+				B.unmarkCell();
+				break;
+			}
+			moves.append(c.i + "," + c.j + " ");
+		}
+
+		while(B.gameState() == MNKGameState.OPEN) {
+			int curr = B.currentPlayer();
+			MNKCell c = Player[curr].selectCell(B.getFreeCells(),B.getMarkedCells());
+			if(B.cellState(c.i,c.j) != MNKCellState.FREE)
+				throw new IllegalStateException(Player[curr].playerName() + " selected an illegal move [" + c.i + "," + c.j + "]");
+			B.markCell(c.i,c.j);
+			moves.append(c.i + "," + c.j);
+			if(Player[curr] instanceof GW && ((GW) Player[curr]).lastSearched()) {
+				int score = ((GW) Player[curr]).lastScore();
+				moves.append("," + (curr == 0 ? score : -score));
+			}
+			moves.append(" ");
+		}
+
+		for(int k = 0; k < 2; k++)
+			MNKPlayerTester.closePlayer(Player[k]);
+
+		String result = B.gameState() == MNKGameState.WINP1 ? "1" : B.gameState() == MNKGameState.WINP2 ? "0" : "0.5";
+		return M + "," + N + "," + K + ";" + result + ";" + moves.toString().trim();
+	}
+
+	private static int parseInt(String args[], int i) throws IllegalArgumentException {
+		if(args.length < i+2)
+			throw new IllegalArgumentException("Expected parameter after " + args[i]);
+		try {
+			int n = Integer.parseInt(args[i+1]);
+			if(n < 0) throw new IllegalArgumentException("Argument " + args[i] + " must not be negative");
+			return n;
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Illegal integer format for " + args[i] + " argument: " + args[i+1]);
+		}
+	}
+
+	private static void parseArgs(String args[]) {
+		List<String> L = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			switch(args[i].charAt(0)) {
+				case '-':
+					char c = (args[i].length() != 2 ? 'x' : args[i].charAt(1));
+					switch(c) {
+						case 'g': GAMES = parseInt(args, i++); break;
+						case 'j': JOBS  = Math.max(1, parseInt(args, i++)); break;
+						case 'n': NODES = parseInt(args, i++); break;
+						case 'p': PLIES = parseInt(args, i++); break;
+						case 's': SEED  = parseInt(args, i++); break;
+						case 'o':
+							if(args.length < i+2)
+								throw new IllegalArgumentException("Expected parameter after " + args[i]);
+							OUTPUT = args[++i];
+							break;
+						default: 
+							throw new IllegalArgumentException("Illegal argument:  " + args[i]);
+					}
+					break;
+				default:
+					L.add(args[i]);
+			}
+		}
+
+		if(L.size() < 3 || L.size() > 5)
+			throw new IllegalArgumentException("Expected arguments: <M> <N> <K> [<MNKPlayer class> [<MNKPlayer class>]]");
+		try {
+			M = Integer.parseInt(L.get(0));
+			N = Integer.parseInt(L.get(1));
+			K = Integer.parseInt(L.get(2));
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException("Illegal integer format for M, N, K arguments");
+		}
+		if(M <= 0 || N <= 0 || K <= 0)
+			throw new IllegalArgumentException("Arguments  M, N, K must be larger than 0");
+		if(L.size() > 3) PlayerClass[0] = PlayerClass[1] = L.get(3);
+		if(L.size() > 4) PlayerClass[1] = L.get(4);
+		for(String P : PlayerClass)
+			MNKPlayerTester.newPlayer(P); // fail now if the class is not valid
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: SelfPlay [OPTIONS] <M> <N> <K> [<MNKPlayer class> [<MNKPlayer class>]]");
+		System.err.println("OPTIONS:");
+		System.err.println("  -g <games>  Number of games. Default: " + GAMES);
+		System.err.println("  -j <jobs>   Number of games played concurrently. Default: no. of processors");
+		System.err.println("  -n <nodes>  Node budget of every GW move. Default: " + NODES);
+		System.err.println("  -p <plies>  Maximum number of random opening moves. Default: " + PLIES);
+		System.err.println("  -s <seed>   Seed of the openings. Default: " + SEED);
+		System.err.println("  -o <file>   Output file, appended to. Default: " + OUTPUT);
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		if(args.length == 0) {
+			printUsage();
+			System.exit(0);
+		}
+
+		try {
+			parseArgs(args);
+		}
+		catch(Exception e) {
+			System.err.println(e);
+			System.exit(1);
+		}
+
+		final BlockingQueue<String> queue = new ArrayBlockingQueue<String>(QUEUE);
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicInteger failed = new AtomicInteger();
+		long start = System.nanoTime();
+
+		ExecutorService pool = Executors.newFixedThreadPool(JOBS);
+		for(int t = 0; t < JOBS; t++) {
+			pool.execute(() -> {
+				for(int g = next.getAndIncrement(); g < GAMES; g = next.getAndIncrement()) {
+					try {
+						queue.put(playGame(SEED * 1_000_003L + g));
+					}
+					catch(InterruptedException e) {
+						return;
+					}
+					catch(RuntimeException e) {
+						System.err.println("Game " + g + ": " + e);
+						failed.incrementAndGet();
+					}
+				}
+			});
+		}
+		pool.shutdown();
+
+		Thread writer = new Thread(() -> {
+			try(BufferedWriter out = Files.newBufferedWriter(Paths.get(OUTPUT), StandardCharsets.UTF_8,
+			                                                 StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+				for(String line = queue.take(); line != END; line = queue.take()) {
+					out.write(line);
+					out.newLine();
+				}
+			}
+			catch(IOException | InterruptedException e) {
+				System.err.println("Error: cannot write " + OUTPUT + ": " + e);
+				System.exit(1);
+			}
+		});
+		writer.start();
+
+		pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		queue.put(END);
+		writer.join();
+
+		int games = GAMES - failed.get();
+		double secs = (System.nanoTime() - start) / 1e9;
+		System.out.println(games + " games written to " + OUTPUT + String.format(" in %.1f s (%.1f games/s)", secs, games / secs));
+	}
+}
@@ -1,6 +1,9 @@
 package mnkgame;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Random;
+import java.util.TreeSet;
 
 /**
  * Testing class for GW methods
@@ -51,12 +54,11 @@ public class Test {
         }
     }
 
-    public static void openThreatsTest(){
-        GW gw = new GW();
-
-        gw.initPlayer(7, 7, 4, true, 10);
+    /**
+     * The moves of each player in openThreatsTest(), on a 7x7 board with K = 4
+     */
+    public static LinkedList<Position> openThreatsP1Moves(){
         LinkedList<Position> p1Moves = new LinkedList<>();
-        LinkedList<Position> p2Moves = new LinkedList<>();
         p1Moves.add(new Position(1, 1));
         p1Moves.add(new Position(1, 2));
         p1Moves.add(new Position(1, 4));
@@ -68,7 +70,11 @@ public class Test {
         p1Moves.add(new Position(3, 3));
         p1Moves.add(new Position(5, 2));
         p1Moves.add(new Position(5, 3));
+        return p1Moves;
+    }
 
+    public static LinkedList<Position> openThreatsP2Moves(){
+        LinkedList<Position> p2Moves = new LinkedList<>();
         p2Moves.add(new Position(0,1));
         p2Moves.add(new Position(0,2));
         p2Moves.add(new Position(0,3));
@@ -79,8 +85,14 @@ public class Test {
         p2Moves.add(new Position(2,5));
         p2Moves.add(new Position(4,0));
         p2Moves.add(new Position(4,5));
+        return p2Moves;
+    }
 
-        scenario(gw.board, p1Moves, p2Moves);
+    public static void openThreatsTest(){
+        GW gw = new GW();
+
+        gw.initPlayer(7, 7, 4, true, 10);
+        scenario(gw.board, openThreatsP1Moves(), openThreatsP2Moves());
         playback(gw.board);
     }
 
@@ -111,9 +123,10 @@ public class Test {
         playback(gw.board);
     }
 
-    public static void halfOpenThreatsTest(){
-        GW gw = new GW();
-        gw.initPlayer(7, 7, 4, true, 10);
+    /**
+     * The moves of each player in halfOpenThreatsTest(), on a 7x7 board with K = 4
+     */
+    public static LinkedList<Position> halfOpenThreatsP1Moves(){
         LinkedList<Position> p1Moves = new LinkedList<>();
         p1Moves.add(new Position(0,1));
         p1Moves.add(new Position(0,2));
@@ -127,7 +140,10 @@ public class Test {
         p1Moves.add(new Position(4,2));
         p1Moves.add(new Position(6,2));
         p1Moves.add(new Position(6,4));
+        return p1Moves;
+    }
 
+    public static LinkedList<Position> halfOpenThreatsP2Moves(){
         LinkedList<Position> p2Moves = new LinkedList<>();
         p2Moves.add(new Position(1,3));
         p2Moves.add(new Position(1,4));
@@ -141,8 +157,13 @@ public class Test {
         p2Moves.add(new Position(5,4));
         p2Moves.add(new Position(5,6));
         p2Moves.add(new Position(6,3));
+        return p2Moves;
+    }
 
-        scenario(gw.board, p1Moves, p2Moves);
+    public static void halfOpenThreatsTest(){
+        GW gw = new GW();
+        gw.initPlayer(7, 7, 4, true, 10);
+        scenario(gw.board, halfOpenThreatsP1Moves(), halfOpenThreatsP2Moves());
         playback(gw.board);
     }
 
@@ -176,7 +197,115 @@ public class Test {
         apt.removeFirst();
     }
 
+    /**
+     * Searches a position at a fixed depth and prints the chosen cell and the number of visited nodes
+     * @return the number of visited nodes
+     */
+    public static long nodeSignature(String name, int M, int N, int K, LinkedList<Position> p1Moves, LinkedList<Position> p2Moves, int depth){
+        GW gw = new GW();
+        gw.initPlayer(M, N, K, p1Moves.size() == p2Moves.size(), 10);
+        gw.setFixedDepth(depth);
+        scenario(gw.board, p1Moves, p2Moves);
+
+        MNKCell cell = gw.iterativeDeepening(K);
+        System.out.println(name + " (" + M + ", " + N + ", " + K + ") depth " + depth + ": [" + cell.i + "," + cell.j + "] " + gw.nodes() + " nodes");
+        return gw.nodes() * 31 + cell.i * N + cell.j;
+    }
+
+    /**
+     * Prints the node-count signature of GW on a few fixed positions.
+     * Two versions of GW that print the same signatures searched the same trees,
+     * so an optimisation can be checked for unchanged search behaviour
+     */
+    public static void nodeSignatures(int depth){
+        long signature = 0;
+        signature = signature * 31 + nodeSignature("empty", 7, 7, 4, new LinkedList<>(), new LinkedList<>(), depth);
+        signature = signature * 31 + nodeSignature("openThreats", 7, 7, 4, openThreatsP1Moves(), openThreatsP2Moves(), depth);
+        signature = signature * 31 + nodeSignature("halfOpenThreats", 7, 7, 4, halfOpenThreatsP1Moves(), halfOpenThreatsP2Moves(), depth);
+        signature = signature * 31 + nodeSignature("openThreats", 20, 20, 5, openThreatsP1Moves(), openThreatsP2Moves(), depth);
+        signature = signature * 31 + nodeSignature("halfOpenThreats", 20, 20, 5, halfOpenThreatsP1Moves(), halfOpenThreatsP2Moves(), depth);
+        System.out.println("signature: " + Long.toHexString(signature));
+    }
+
+    /**
+     * The threats, threat counts and candidate cells of a board, in an order that does
+     * not depend on how they are stored
+     */
+    private static String state(Board b){
+        TreeSet<Long> threats = new TreeSet<>();
+        for(int s = 0; s < b.threats.capacity(); s++)
+            if(b.threats.at(s) != 0) threats.add(b.threats.at(s));
+        TreeSet<Integer> candidates = new TreeSet<>();
+        for(MNKCell c : b.getCandidateCells()) candidates.add(c.i * b.N + c.j);
+        return threats + " " + Arrays.toString(b.getNumberOfThreats()) + " " + candidates;
+    }
+
+    /**
+     * @return a dense board with the moves of b, each followed by updateThreats()
+     */
+    private static Board rebuild(Board b){
+        Board r = new Board(b.M, b.N, b.K, 1, false);
+        for(MNKCell c : b.MC){
+            r.markCell(c.i, c.j);
+            r.updateThreats(r.getCellAt(c.i, c.j));
+        }
+        return r;
+    }
+
+    /**
+     * Plays random sequences of markCell(), updateThreats() and unmarkCell() on dense and
+     * sparse boards and, after every step, compares the incremental state of the board
+     * (threat set, threat counts, frontier, undo journal) with a board rebuilt from its moves
+     * @return the number of steps checked, -1 after printing the first mismatch
+     */
+    public static int boardConsistency(int games, long seed){
+        Random r = new Random(seed);
+        int[][] cfg = {{7, 7, 4}, {15, 15, 5}, {9, 9, 3}, {6, 6, 6}, {20, 20, 13}, {120, 120, 5}};
+        int checks = 0;
+        for(boolean sparse : new boolean[] {false, true}){
+            for(int[] c : cfg){
+                for(int g = 0; g < games; g++){
+                    Board b = new Board(c[0], c[1], c[2], 1, sparse);
+                    for(int step = 0; step < 200; step++){
+                        boolean mark = b.MC.isEmpty() || (b.gameState() == MNKGameState.OPEN && r.nextInt(3) > 0);
+                        if(mark){
+                            MNKCell[] candidates = b.getCandidateCells();
+                            MNKCell x = candidates[r.nextInt(candidates.length)];
+                            b.markCell(x.i, x.j);
+                            b.updateThreats(b.getCellAt(x.i, x.j));
+                            if(r.nextInt(5) == 0) b.updateThreats(b.getCellAt(x.i, x.j)); // again: no change
+                        } else {
+                            MNKCell last = b.MC.getLast();
+                            b.unmarkCell();
+                            if(r.nextInt(4) == 0) b.updateThreats(b.getCellAt(last.i, last.j)); // as after a legacy unmark
+                        }
+                        String expected = state(rebuild(b)), actual = state(b);
+                        if(!expected.equals(actual)){
+                            System.out.println("mismatch on " + (sparse ? "sparse " : "dense ") + Arrays.toString(c) + " after " + b.MC);
+                            System.out.println("  expected " + expected);
+                            System.out.println("  actual   " + actual);
+                            return -1;
+                        }
+                        checks++;
+                    }
+                }
+            }
+        }
+        return checks;
+    }
+
     public static void main(String[] args) {
+        if(args.length > 0 && args[0].equals("signature")){ // java mnkgame.Test signature [depth]
+            nodeSignatures(args.length > 1 ? Integer.parseInt(args[1]) : 3);
+            return;
+        }
+        if(args.length > 0 && args[0].equals("consistency")){ // java mnkgame.Test consistency [games]
+            int checks = boardConsistency(args.length > 1 ? Integer.parseInt(args[1]) : 10, 1);
+            if(checks < 0) System.exit(1);
+            System.out.println("consistency: " + checks + " steps ok");
+            return;
+        }
+
         String game;
         String gw = "mnkgame.GW";
         String qrp = "mnkgame.QuasiRandomPlayer";
@@ -0,0 +1,34 @@
+package mnkgame;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder event spanning one game played by MNKPlayerTester or MNKTournament
+ */
+@Name("mnkgame.TesterRound")
+@Label("Tester Round")
+@Category("MNKGame")
+@Description("One game between two MNKPlayers")
+public class TesterRoundEvent extends Event {
+    @Label("Round")
+    public int round;
+
+    @Label("Board")
+    public String board;
+
+    @Label("Player 1")
+    public String player1;
+
+    @Label("Player 2")
+    public String player2;
+
+    @Label("Result")
+    public String result;
+
+    @Label("Moves")
+    public int moves;
+}
@@ -0,0 +1,294 @@
+package mnkgame;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Fits the threat weights of GW.evaluate to the games written by SelfPlay (Texel's method):
+ * the evaluation of every quiet position, turned into an expected score by a logistic
+ * function, should predict the outcome of its game. The mean squared prediction error is
+ * minimised by coordinate descent on the six weights, with steps halving down to 1.
+ * <p>
+ * Positions are replayed once and reduced to the six threat counts of
+ * Board.getNumberOfThreats(); the error is then computed over them with a parallel stream.
+ * Positions where the player to move can win right away are skipped, as their evaluation
+ * says nothing about the threats. With <code>-l</code> the target is a blend of the outcome
+ * and of the expected score of the search, as in SelfPlay output.
+ * victoryParam is not tuned: only terminal positions depend on it.
+ * </p>
+ * <p>
+ * Every (M,N,K) class in the data gets its own profile, see EvalWeights.
+ * </p>
+ * <p>
+ * Usage: TexelTuner [OPTIONS] &lt;file&gt; [&lt;file&gt; ...]<br/>
+ * OPTIONS:<br>
+ * &nbsp;&nbsp;-l &lt;lambda&gt; Weight of the game outcome in the target, the rest is the search score</br>
+ * &nbsp;&nbsp;-i &lt;iterations&gt; Maximum number of coordinate descent passes</br>
+ * &nbsp;&nbsp;-n &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;Dry run: print the weights without writing the profiles</br>
+ * </p>
+ */
+public class TexelTuner {
+	private static double  LAMBDA     = 1;
+	private static int     ITERATIONS = 100;
+	private static boolean DRY_RUN    = false;
+	private static List<String> DataFiles = new ArrayList<String>();
+	private static final int  CHUNK = 4096; // games replayed in parallel at a time
+
+	private TexelTuner() {
+	}
+
+	/** The positions of one (M,N,K) class: 6 threat counts and a target score per position */
+	static class DataSet {
+		final int M, N, K;
+		int[]    features;
+		double[] targets;
+		double[] scores; // search scores (P1's view), NaN if none
+		int      size;
+
+		DataSet(int M, int N, int K) {
+			this(M, N, K, 1024);
+		}
+
+		/** @param capacity the positions it holds before growing, e.g. a few for a single game */
+		DataSet(int M, int N, int K, int capacity) {
+			this.M = M;
+			this.N = N;
+			this.K = K;
+			features = new int[6 * capacity];
+			targets  = new double[capacity];
+			scores   = new double[capacity];
+		}
+
+		private void ensureCapacity(int n) {
+			if(n <= targets.length) return;
+			int capacity = Math.max(n, Math.max(16, 2 * targets.length));
+			features = Arrays.copyOf(features, 6 * capacity);
+			targets  = Arrays.copyOf(targets, capacity);
+			scores   = Arrays.copyOf(scores, capacity);
+		}
+
+		void add(int[] th, double result, double score) {
+			ensureCapacity(size + 1);
+			System.arraycopy(th, 0, features, 6 * size, 6);
+			targets[size] = result;
+			scores[size]  = score;
+			size++;
+		}
+
+		void add(DataSet d) {
+			ensureCapacity(size + d.size);
+			System.arraycopy(d.features, 0, features, 6 * size, 6 * d.size);
+			System.arraycopy(d.targets, 0, targets, size, d.size);
+			System.arraycopy(d.scores, 0, scores, size, d.size);
+			size += d.size;
+		}
+
+		/** Evaluation of position x from P1's point of view, as in GW.evaluate */
+		long eval(int x, int[] w) {
+			int o = 6 * x;
+			return (long) features[o] * w[0] + (long) features[o+1] * w[1] + (long) features[o+2] * w[2]
+			     - (long) features[o+3] * w[3] - (long) features[o+4] * w[4] - (long) features[o+5] * w[5];
+		}
+
+		/** Mean squared error of the predictions of the weights, computed in parallel */
+		double error(int[] w, double scale) {
+			return IntStream.range(0, size).parallel().mapToDouble(x -> {
+				double e = target(x, scale) - sigmoid(scale * eval(x, w));
+				return e * e;
+			}).sum() / size;
+		}
+
+		double target(int x, double scale) {
+			if(LAMBDA >= 1 || Double.isNaN(scores[x])) return targets[x];
+			return LAMBDA * targets[x] + (1 - LAMBDA) * sigmoid(scale * scores[x]);
+		}
+	}
+
+	static double sigmoid(double v) {
+		return 1 / (1 + Math.exp(-v));
+	}
+
+	/**
+	 * Replays a SelfPlay line and adds its quiet positions to the data set of its class
+	 */
+	private static DataSet parseGame(String line) {
+		String[] f = line.split(";");
+		String[] mnk = f[0].split(",");
+		DataSet d = new DataSet(Integer.parseInt(mnk[0]), Integer.parseInt(mnk[1]), Integer.parseInt(mnk[2]), 16);
+		double result = Double.parseDouble(f[1]);
+		Board B = new Board(d.M, d.N, d.K);
+		String[] moves = f.length > 2 && !f[2].isEmpty() ? f[2].split(" ") : new String[0];
+		for(String m : moves) {
+			String[] v = m.split(",");
+			int i = Integer.parseInt(v[0]), j = Integer.parseInt(v[1]);
+			double score = v.length > 2 ? Double.parseDouble(v[2]) : Double.NaN;
+			if(B.markCell(i,j) != MNKGameState.OPEN) break;
+			B.updateThreats(B.getCellAt(i,j));
+			MNKCellState toMove = B.currentPlayer() == 0 ? MNKCellState.P1 : MNKCellState.P2;
+			if(B.getWinningCells(toMove).length > 0) continue; // not quiet
+			d.add(B.getNumberOfThreats(), result, score);
+		}
+		return d;
+	}
+
+	/**
+	 * Fits the scale of the logistic function to the current weights, by golden section
+	 * search on its logarithm
+	 */
+	private static double fitScale(DataSet d, int[] w) {
+		double lo = Math.log(1e-6), hi = Math.log(1e-1), g = (Math.sqrt(5) - 1) / 2;
+		double a = hi - g * (hi - lo), b = lo + g * (hi - lo);
+		double ea = d.error(w, Math.exp(a)), eb = d.error(w, Math.exp(b));
+		for(int it = 0; it < 40; it++) {
+			if(ea < eb) { hi = b; b = a; eb = ea; a = hi - g * (hi - lo); ea = d.error(w, Math.exp(a)); }
+			else        { lo = a; a = b; ea = eb; b = lo + g * (hi - lo); eb = d.error(w, Math.exp(b)); }
+		}
+		return Math.exp((lo + hi) / 2);
+	}
+
+	/**
+	 * Coordinate descent: every weight is moved by +step or -step as long as that lowers the
+	 * error, then the step is halved
+	 */
+	private static EvalWeights tune(DataSet d) {
+		EvalWeights weights = EvalWeights.load(d.M, d.N, d.K);
+		int[] w = weights.threatWeights();
+		double scale = fitScale(d, w);
+		double best = d.error(w, scale);
+		System.out.printf("(%d, %d, %d) %d positions, scale %.3g, initial error %.6f%n", d.M, d.N, d.K, d.size, scale, best);
+
+		int step = Integer.highestOneBit(Math.max(1, Arrays.stream(w).max().getAsInt() / 8));
+		for(int it = 0; it < ITERATIONS && step > 0; it++) {
+			boolean improved = false;
+			for(int x = 0; x < w.length; x++) {
+				for(int sign : new int[] {1, -1}) {
+					int old = w[x];
+					w[x] = Math.max(0, old + sign * step);
+					double e = w[x] == old ? best : d.error(w, scale);
+					if(e < best) {
+						best = e;
+						improved = true;
+						break;
+					}
+					w[x] = old;
+				}
+			}
+			System.out.printf("  pass %d step %d error %.6f %s%n", it + 1, step, best, Arrays.toString(w));
+			if(!improved) step /= 2;
+		}
+		weights.setThreatWeights(w);
+		return weights;
+	}
+
+	private static void parseArgs(String args[]) {
+		for (int i = 0; i < args.length; i++) {
+			switch(args[i].charAt(0)) {
+				case '-':
+					char c = (args[i].length() != 2 ? 'x' : args[i].charAt(1));
+					switch(c) {
+						case 'l':
+							if(args.length < i+2)
+								throw new IllegalArgumentException("Expected parameter after " + args[i]);
+							try {
+								LAMBDA = Double.parseDouble(args[++i]);
+							} catch(NumberFormatException e) {
+								throw new IllegalArgumentException("Illegal number format for " + args[i-1] + " argument: " + args[i]);
+							}
+							if(LAMBDA < 0 || LAMBDA > 1)
+								throw new IllegalArgumentException("Argument " + args[i-1] + " must be between 0 and 1");
+							break;
+						case 'i':
+							if(args.length < i+2)
+								throw new IllegalArgumentException("Expected parameter after " + args[i]);
+							try {
+								ITERATIONS = Integer.parseInt(args[++i]);
+							} catch(NumberFormatException e) {
+								throw new IllegalArgumentException("Illegal integer format for " + args[i-1] + " argument: " + args[i]);
+							}
+							break;
+						case 'n':
+							DRY_RUN = true;
+							break;
+						default:
+							throw new IllegalArgumentException("Illegal argument:  " + args[i]);
+					}
+					break;
+				default:
+					DataFiles.add(args[i]);
+			}
+		}
+		if(DataFiles.isEmpty())
+			throw new IllegalArgumentException("Missing arguments: <file>");
+	}
+
+	private static void printUsage() {
+		System.err.println("Usage: TexelTuner [OPTIONS] <file> [<file> ...]");
+		System.err.println("OPTIONS:");
+		System.err.println("  -l <lambda>      Weight of the game outcome in the target, the rest is the search score. Default: " + LAMBDA);
+		System.err.println("  -i <iterations>  Maximum number of coordinate descent passes. Default: " + ITERATIONS);
+		System.err.println("  -n               Dry run: print the weights without writing the profiles. Default: " + DRY_RUN);
+	}
+
+	public static void main(String[] args) {
+		if(args.length == 0) {
+			printUsage();
+			System.exit(0);
+		}
+
+		try {
+			parseArgs(args);
+		}
+		catch(Exception e) {
+			System.err.println(e);
+			System.exit(1);
+		}
+
+		// games are streamed from the files and replayed in parallel a chunk at a time, then
+		// merged per (M,N,K) class in file order: memory grows with the positions only
+		Map<String, DataSet> data = new LinkedHashMap<String, DataSet>();
+		for(String file : DataFiles) {
+			try(BufferedReader in = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+				List<String> chunk = new ArrayList<String>(CHUNK);
+				String line;
+				do {
+					line = in.readLine();
+					if(line != null && !line.isBlank()) chunk.add(line);
+					if(chunk.size() == CHUNK || (line == null && !chunk.isEmpty())) {
+						for(DataSet g : chunk.parallelStream().map(TexelTuner::parseGame).collect(Collectors.toList()))
+							data.computeIfAbsent(g.M + "," + g.N + "," + g.K, key -> new DataSet(g.M, g.N, g.K)).add(g);
+						chunk.clear();
+					}
+				} while(line != null);
+			}
+			catch(IOException | RuntimeException e) {
+				System.err.println("Error: cannot read " + file + ": " + e);
+				System.exit(1);
+				return;
+			}
+		}
+
+		for(DataSet d : data.values()) {
+			if(d.size == 0) continue;
+			EvalWeights w = tune(d);
+			System.out.println("(" + d.M + ", " + d.N + ", " + d.K + ") " + w);
+			if(DRY_RUN) continue;
+			try {
+				w.save(d.M, d.N, d.K, "Tuned by TexelTuner on " + d.size + " positions");
+				System.out.println("Written to " + EvalWeights.profile(d.M, d.N, d.K));
+			}
+			catch(IOException e) {
+				System.err.println("Error: cannot write " + EvalWeights.profile(d.M, d.N, d.K) + ": " + e);
+			}
+		}
+	}
+}
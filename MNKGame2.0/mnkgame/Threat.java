@@ -104,6 +104,48 @@ public class Threat{
         return Integer.max(p1, p2);
     }
 
+    /* PACKED THREATS (BELOW) */
+
+    /*
+     * A threat on a board of N columns packed in a long:
+     * bits  0-31 index of the first cell in the board padded with one cell on each side, (i+1)*(N+2) + j+1
+     * bits 32-33 axis
+     * bits 34-49 no. of cells, extremities included
+     * bits 50-51 state of the first inner cell: 0 free, 1 P1, 2 P2
+     * bits 52-55 type + 1, see Board.getNumberOfThreats()
+     * The first three fields identify the window, the other two what the window holds
+     */
+
+    /** Bits of a packed threat that identify its window */
+    public static final long WINDOW_MASK = (1L << 50) - 1;
+
+    public static long pack(int i, int j, int N, Axis axis, int size, int owner, int type) {
+        return ((i + 1L) * (N + 2) + j + 1) | (long) axis.ordinal() << 32 | (long) size << 34
+                | (long) owner << 50 | (long) (type + 1) << 52;
+    }
+
+    public static int startI(long t, int N) { return (int) (t & 0xFFFFFFFFL) / (N + 2) - 1; }
+
+    public static int startJ(long t, int N) { return (int) (t & 0xFFFFFFFFL) % (N + 2) - 1; }
+
+    private static final Axis[] AXES = Axis.values();
+
+    public static Axis axis(long t) { return AXES[(int) (t >>> 32) & 3]; }
+
+    public static int size(long t) { return (int) (t >>> 34) & 0xFFFF; }
+
+    public static int owner(long t) { return (int) (t >>> 50) & 3; }
+
+    public static int type(long t) { return (int) (t >>> 52 & 0xF) - 1; }
+
+    /** Row step of the axis, in scanning direction */
+    public static int di(Axis axis) { return axis == Axis.HORIZONTAL ? 0 : 1; }
+
+    /** Column step of the axis, in scanning direction */
+    public static int dj(Axis axis) { return axis == Axis.VERTICAL ? 0 : (axis == Axis.ANTIDIAGONAL ? -1 : 1); }
+
+    /* PACKED THREATS (ABOVE) */
+
     public String toString(){
         StringBuilder sb = new StringBuilder("[" + axis + ",\n");
         for(MNKCell c : cells) sb.append(c.toString() + ", ");
@@ -0,0 +1,105 @@
+package mnkgame;
+
+import java.util.HashMap;
+
+/**
+ * Lookup tables that classify a line window of the board from a single integer.
+ * <p>
+ * A window of L cells is encoded in base 3, cell p contributing
+ * state * 3<sup>p</sup> (0 free, 1 P1, 2 P2). An out of bounds extremity is
+ * encoded as a stone, since only whether an extremity is free matters; a window
+ * with out of bounds inner cells is never a threat and is not looked up.
+ * For each window size used by the threat search (K, K+1 and K+2) a table maps
+ * the code to the threat type, which is the index of the threat in
+ * Board.getNumberOfThreats(), or -1 if the window is not a threat.
+ * </p>
+ * The tables follow the threat definitions of Threat and Board; a new kind of
+ * pattern only changes how they are built, not the cost of reading them.
+ * They are built once per K and shared by all the boards
+ */
+public class ThreatPatterns {
+    /** Largest window for which tables are built: 3^14 bytes per table at most */
+    public static final int MAX_WINDOW = 14;
+
+    private static final HashMap<Integer, ThreatPatterns> cache = new HashMap<>();
+
+    public final int K;
+    final int[] pow3;
+    private final byte[][] types; // types[L - K][code]
+
+    private ThreatPatterns(int K) {
+        this.K = K;
+        pow3 = new int[K + 3];
+        pow3[0] = 1;
+        for (int p = 1; p < pow3.length; p++)
+            pow3[p] = pow3[p - 1] * 3;
+        types = new byte[3][];
+        int[] cells = new int[K + 2];
+        for (int L = K; L <= K + 2; L++) {
+            byte[] table = new byte[pow3[L]];
+            for (int code = 0; code < table.length; code++) {
+                for (int p = 0, c = code; p < L; p++, c /= 3)
+                    cells[p] = c % 3;
+                table[code] = (byte) classify(cells, L);
+            }
+            types[L - K] = table;
+        }
+    }
+
+    /**
+     * @return the tables for K, or null if the windows are too large to tabulate
+     */
+    public static ThreatPatterns forK(int K) {
+        if (K < 1 || K + 2 > MAX_WINDOW)
+            return null;
+        synchronized (cache) {
+            return cache.computeIfAbsent(K, ThreatPatterns::new);
+        }
+    }
+
+    /**
+     * @param L    the window size, between K and K+2
+     * @param code the base 3 code of the window
+     * @return the threat type, -1 if the window is not a threat
+     */
+    public int type(int L, int code) {
+        return types[L - K][code];
+    }
+
+    /**
+     * @return the number of aligned symbols of a threat of the given type
+     */
+    public static int length(int type, int K) {
+        return type % 3 == 2 ? K - 2 : K - 1;
+    }
+
+    // The definitions of Board.isThreat() and getNumberOfThreats() on a decoded window
+    private int classify(int[] cells, int L) {
+        int p1 = 0, p2 = 0, free = 0;
+        for (int p = 1; p < L - 1; p++) {
+            if (cells[p] == 1) p1++;
+            else if (cells[p] == 2) p2++;
+            else free++;
+        }
+        boolean left = cells[0] == 0, right = cells[L - 1] == 0;
+        int inner = L - 2, type;
+        if (L == K) // k-2 open
+            type = left && right && (p1 == inner || p2 == inner) ? 2 : -1;
+        else if (L == K + 1) { // k-1 open or half open without jump
+            if (!(p1 == inner || p2 == inner))
+                type = -1;
+            else if (left && right)
+                type = 0;
+            else if (left ^ right)
+                type = 1;
+            else
+                type = -1;
+        } else { // k-1 half open with a jump, not next to the extremities
+            boolean hole = cells[1] != 0 && cells[L - 2] != 0 && free == 1;
+            type = hole && (p1 == L - 3 || p2 == L - 3) ? 1 : -1;
+        }
+        if (type >= 0 && cells[1] == 2)
+            type += 3; // the owner is the player of the first inner cell
+        return type;
+    }
+}
@@ -0,0 +1,129 @@
+package mnkgame;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing set of packed threats (see Threat.pack()), without boxing.
+ * Threats are identified by their window: a window holds at most one threat,
+ * and adding a threat replaces the one in the same window.
+ * Iterate with <code>for (int s = 0; s &lt; set.capacity(); s++)</code> skipping
+ * the slots where <code>at(s)</code> is 0
+ */
+public class ThreatSet {
+    private long[] slots; // 0 if empty, a packed threat is never 0
+    private int mask;
+    private int shift; // 64 - log2 of the capacity
+    private int size;
+
+    public ThreatSet() {
+        slots = new long[64];
+        mask = slots.length - 1;
+        shift = 64 - 6;
+    }
+
+    /**
+     * Copy of the set, made with a bulk copy of its slots
+     */
+    public ThreatSet(ThreatSet set) {
+        slots = set.slots.clone();
+        mask = set.mask;
+        shift = set.shift;
+        size = set.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return the threat in the slot, 0 if it is empty
+     */
+    public long at(int slot) {
+        return slots[slot];
+    }
+
+    /**
+     * @return the threat in the window of t, 0 if there is none
+     */
+    public long get(long t) {
+        long window = t & Threat.WINDOW_MASK;
+        for (int slot = slot(window);; slot = (slot + 1) & mask) {
+            if (slots[slot] == 0)
+                return 0;
+            if ((slots[slot] & Threat.WINDOW_MASK) == window)
+                return slots[slot];
+        }
+    }
+
+    /**
+     * @return the threat that was in the same window, 0 if there was none
+     */
+    public long add(long t) {
+        long window = t & Threat.WINDOW_MASK;
+        int slot = slot(window);
+        for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if ((slots[slot] & Threat.WINDOW_MASK) == window) {
+                long old = slots[slot];
+                slots[slot] = t;
+                return old;
+            }
+        }
+        slots[slot] = t;
+        if (++size * 2 > slots.length)
+            resize(slots.length * 2);
+        return 0;
+    }
+
+    /**
+     * Removes the threat in the window of t, whatever it holds
+     * 
+     * @return the removed threat, 0 if there was none
+     */
+    public long remove(long t) {
+        long window = t & Threat.WINDOW_MASK;
+        int slot = slot(window);
+        for (; (slots[slot] & Threat.WINDOW_MASK) != window; slot = (slot + 1) & mask) {
+            if (slots[slot] == 0)
+                return 0;
+        }
+        long old = slots[slot];
+        // backward shift: moves back the entries that would not be found past the hole
+        for (int next = (slot + 1) & mask; slots[next] != 0; next = (next + 1) & mask) {
+            int home = slot(slots[next] & Threat.WINDOW_MASK);
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                slots[slot] = slots[next];
+                slot = next;
+            }
+        }
+        slots[slot] = 0;
+        size--;
+        return old;
+    }
+
+    public void clear() {
+        if (size == 0)
+            return;
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    private int slot(long window) {
+        return (int) (window * 0x9E3779B97F4A7C15L >>> shift); // Fibonacci hashing
+    }
+
+    private void resize(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        mask = capacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        size = 0;
+        for (long t : old) {
+            if (t != 0)
+                add(t);
+        }
+    }
+}